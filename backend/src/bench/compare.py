@@ -0,0 +1,63 @@
+#!/usr/bin/env python3
+"""
+比较两次 JMH 运行结果（-rf json），列出各基准的变化并标记性能回退。
+
+用法: python3 src/bench/compare.py <基线结果.json> <本次结果.json> [--threshold 10]
+
+吞吐量模式（thrpt）分数越高越好，其余模式（avgt/sample/ss）分数越低越好。
+任一基准回退超过阈值（百分比）时以状态码 1 退出，便于在流水线中使用。
+"""
+import argparse
+import json
+import sys
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = {}
+        for item in json.load(f):
+            params = ",".join(f"{k}={v}" for k, v in sorted((item.get("params") or {}).items()))
+            key = item["benchmark"] + (f"({params})" if params else "") + f" [{item['mode']}]"
+            results[key] = item
+        return results
+
+
+def main():
+    parser = argparse.ArgumentParser(description="比较两次 JMH 运行结果")
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--threshold", type=float, default=10.0, help="回退阈值（百分比），默认 10")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+    regressions = 0
+
+    print(f"{'基准':<90} {'基线':>14} {'本次':>14} {'变化':>9}")
+    for key in sorted(current):
+        now = current[key]["primaryMetric"]
+        unit = now["scoreUnit"]
+        if key not in baseline:
+            print(f"{key:<90} {'-':>14} {now['score']:>14.3f} {'新增':>9}  {unit}")
+            continue
+        before = baseline[key]["primaryMetric"]["score"]
+        change = (now["score"] - before) / before * 100 if before else 0.0
+        # 统一为“正数表示变差”
+        worse = -change if current[key]["mode"] == "thrpt" else change
+        flag = ""
+        if worse > args.threshold:
+            flag = "  <-- 回退"
+            regressions += 1
+        print(f"{key:<90} {before:>14.3f} {now['score']:>14.3f} {change:>+8.1f}%  {unit}{flag}")
+
+    for key in sorted(set(baseline) - set(current)):
+        print(f"{key:<90} 本次未运行")
+
+    if regressions:
+        print(f"\n{regressions} 个基准回退超过 {args.threshold}%")
+        sys.exit(1)
+    print(f"\n没有超过 {args.threshold}% 的回退")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,92 @@
+package com.userdept.system.bench;
+
+import com.userdept.system.dto.UserResponse;
+import com.userdept.system.entity.Department;
+import com.userdept.system.utils.JwtUtil;
+import com.userdept.system.vo.PageVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试数据构造
+ */
+final class BenchSupport {
+
+    /**
+     * 与 application.yml 中 jwt.secret 一致
+     */
+    static final String JWT_SECRET = "aVeryLongAndSecureSecretKeyForHmacSha256Algorithm";
+
+    private BenchSupport() {
+    }
+
+    /**
+     * 使用与 application.yml 相同的配置创建 JwtUtil
+     */
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil(new SimpleMeterRegistry());
+        setField(jwtUtil, "secret", JWT_SECRET);
+        setField(jwtUtil, "expiration", 86400L);
+        setField(jwtUtil, "verifiedCacheCapacity", 10000);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    /**
+     * 用户列表接口返回的一页数据
+     */
+    static PageVO<UserResponse> userPage(int size) {
+        List<UserResponse> list = new ArrayList<>(size);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < size; i++) {
+            UserResponse user = new UserResponse();
+            user.setId((long) i + 1);
+            user.setUsername("user" + i);
+            user.setRealname("用户" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setMobile("138" + String.format("%08d", i));
+            user.setSex(i % 2);
+            user.setEnabled(true);
+            user.setDepartmentCodes(List.of("GRADE" + (i % 6), "CLASS" + (i % 30)));
+            user.setCreatedTime(now);
+            user.setUpdatedTime(now);
+            list.add(user);
+        }
+        return new PageVO<>(1000L, 1, size, list);
+    }
+
+    /**
+     * 按层序生成部门树，每个部门有 fanout 个子部门
+     */
+    static List<Department> departments(int count, int fanout) {
+        List<Department> departments = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            Department dept = new Department();
+            dept.setId((long) i + 1);
+            dept.setCode("D" + i);
+            dept.setName("部门" + i);
+            dept.setParentCode(i == 0 ? null : "D" + ((i - 1) / fanout));
+            dept.setDescription("第 " + i + " 个部门");
+            dept.setCreator("bench");
+            dept.setCreatedTime(now);
+            dept.setUpdatedTime(now);
+            departments.add(dept);
+        }
+        return departments;
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalStateException("字段不存在: " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
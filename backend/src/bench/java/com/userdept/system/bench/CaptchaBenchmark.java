@@ -0,0 +1,28 @@
+package com.userdept.system.bench;
+
+import com.userdept.system.utils.CaptchaImageUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图形验证码生成（与 CaptchaController 使用相同的尺寸）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CaptchaBenchmark {
+
+    @Benchmark
+    public CaptchaImageUtil.CaptchaResult createImage() {
+        return CaptchaImageUtil.createImage(110, 40, 5);
+    }
+}
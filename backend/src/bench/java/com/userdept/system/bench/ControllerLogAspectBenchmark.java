@@ -0,0 +1,99 @@
+package com.userdept.system.bench;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.userdept.system.aop.ControllerLogAspect;
+import com.userdept.system.vo.PageVO;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller 日志切面（每个 Controller 方法返回后都会执行）
+ * <p>
+ * 结合 {@code -prof gc} 运行可查看每次调用的内存分配量。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerLogAspectBenchmark {
+
+    /**
+     * 切面日志级别
+     */
+    @Param({"INFO", "DEBUG"})
+    private String level;
+
+    private ControllerLogAspect aspect;
+
+    private JoinPoint joinPoint;
+
+    private PageVO<?> page;
+
+    private MethodHandle filterObjectFields;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        Logger logger = (Logger) LoggerFactory.getLogger(ControllerLogAspect.LOGGER_NAME);
+        logger.setLevel(Level.toLevel(level));
+        // 只统计日志内容的构建开销，不实际输出
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+
+        aspect = new ControllerLogAspect();
+        page = BenchSupport.userPage(10);
+        joinPoint = joinPoint("com.userdept.system.controller.UserController", "getUsers",
+                new Object[]{1, 10, "张三"});
+        filterObjectFields = MethodHandles.privateLookupIn(ControllerLogAspect.class, MethodHandles.lookup())
+                .findVirtual(ControllerLogAspect.class, "filterObjectFields",
+                        MethodType.methodType(String.class, Object.class));
+    }
+
+    @Benchmark
+    public void logAfter() {
+        aspect.logAfter(joinPoint, page);
+    }
+
+    @Benchmark
+    public String filterObjectFields() throws Throwable {
+        return (String) filterObjectFields.invoke(aspect, (Object) page);
+    }
+
+    /**
+     * 构造只支持切面所用方法的 JoinPoint
+     */
+    private static JoinPoint joinPoint(String typeName, String methodName, Object[] args) {
+        Signature signature = (Signature) Proxy.newProxyInstance(Signature.class.getClassLoader(),
+                new Class<?>[]{Signature.class}, (proxy, method, methodArgs) -> switch (method.getName()) {
+                    case "getDeclaringTypeName" -> typeName;
+                    case "getName" -> methodName;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return (JoinPoint) Proxy.newProxyInstance(JoinPoint.class.getClassLoader(),
+                new Class<?>[]{JoinPoint.class}, (proxy, method, methodArgs) -> switch (method.getName()) {
+                    case "getSignature" -> signature;
+                    case "getArgs" -> args.clone();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
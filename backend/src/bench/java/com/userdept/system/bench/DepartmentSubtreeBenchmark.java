@@ -0,0 +1,121 @@
+package com.userdept.system.bench;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.userdept.system.cache.CacheInvalidationBus;
+import com.userdept.system.cache.DepartmentTreeCache;
+import com.userdept.system.cache.MembershipIndex;
+import com.userdept.system.entity.Department;
+import com.userdept.system.entity.UserDepartment;
+import com.userdept.system.mapper.DepartmentMapper;
+import com.userdept.system.mapper.UserDepartmentMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 部门子树成员查询
+ * <p>
+ * subtreeMembers 通过部门树先序序列一次取出子树全部部门，再在成员关系索引中查询；
+ * walkTree 模拟逐个部门查询的方式（按部门树逐层遍历，每个部门查询一次）。
+ * deep 为单链（每个部门一个子部门），wide 为每个部门 100 个子部门，查询均从根部门开始。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DepartmentSubtreeBenchmark {
+
+    @Param({"deep", "wide"})
+    private String shape;
+
+    /**
+     * 每个部门的用户数
+     */
+    @Param({"5"})
+    private int usersPerDepartment;
+
+    private DepartmentTreeCache.Snapshot snapshot;
+
+    private MembershipIndex membershipIndex;
+
+    @Setup
+    public void setup() {
+        // 单链过深时部门树的 JSON 序列化会栈溢出，deep 取 500 层
+        List<Department> departments = "deep".equals(shape)
+                ? BenchSupport.departments(500, 1)
+                : BenchSupport.departments(10000, 100);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        snapshot = new DepartmentTreeCache(proxy(DepartmentMapper.class, departments), objectMapper).reload();
+
+        List<UserDepartment> relations = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        int user = 0;
+        for (Department department : departments) {
+            for (int i = 0; i < usersPerDepartment; i++) {
+                UserDepartment relation = new UserDepartment();
+                relation.setUsername("user" + user++);
+                relation.setDepartmentCode(department.getCode());
+                relation.setCreatedTime(now);
+                relations.add(relation);
+            }
+        }
+        // 索引加载使用 Lambda 条件构造器，需要实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), UserDepartment.class);
+        membershipIndex = new MembershipIndex(proxy(UserDepartmentMapper.class, relations),
+                new CacheInvalidationBus(null, objectMapper, null));
+        membershipIndex.rebuild();
+    }
+
+    @Benchmark
+    public int subtreeMembers() {
+        return membershipIndex.getMembers(snapshot.getSubtreeCodes("D0")).size();
+    }
+
+    @Benchmark
+    public int walkTree() {
+        int count = 0;
+        List<Department> level = snapshot.getTree();
+        while (!level.isEmpty()) {
+            List<Department> next = new ArrayList<>();
+            for (Department department : level) {
+                count += membershipIndex.getMembers(department.getCode()).size();
+                if (department.getChildren() != null) {
+                    next.addAll(department.getChildren());
+                }
+            }
+            level = next;
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> mapperType, List<?> rows) {
+        return (T) Proxy.newProxyInstance(mapperType.getClassLoader(), new Class<?>[]{mapperType},
+                (proxy, method, args) -> {
+                    if ("selectList".equals(method.getName())) {
+                        return rows;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
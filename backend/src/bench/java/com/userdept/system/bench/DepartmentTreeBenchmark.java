@@ -0,0 +1,97 @@
+package com.userdept.system.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.userdept.system.cache.DepartmentTreeCache;
+import com.userdept.system.entity.Department;
+import com.userdept.system.mapper.DepartmentMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 部门树组装
+ * <p>
+ * getDepartmentTree 直接返回 {@link DepartmentTreeCache} 中的快照。
+ * rebuildTree 测量全量加载快照（建树、搜索索引、序列化）的开销；
+ * patchDepartment 测量修改一个部门（改名并移动到另一个父部门下）后修补快照的开销，
+ * patchAndRender 另外包含修补后首次请求生成 JSON 与 ETag 的开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DepartmentTreeBenchmark {
+
+    @Param({"10000"})
+    private int departments;
+
+    /**
+     * 每个部门的子部门数
+     */
+    @Param({"10"})
+    private int fanout;
+
+    private DepartmentTreeCache cache;
+
+    private Department patched;
+
+    private int patchCount;
+
+    @Setup
+    public void setup() {
+        List<Department> rows = BenchSupport.departments(departments, fanout);
+        DepartmentMapper mapper = (DepartmentMapper) Proxy.newProxyInstance(DepartmentMapper.class.getClassLoader(),
+                new Class<?>[]{DepartmentMapper.class}, (proxy, method, args) -> {
+                    if ("selectList".equals(method.getName())) {
+                        return rows;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        cache = new DepartmentTreeCache(mapper, objectMapper);
+        cache.reload();
+        patched = rows.get(rows.size() - 1);
+    }
+
+    @Benchmark
+    public DepartmentTreeCache.Snapshot rebuildTree() {
+        return cache.reload();
+    }
+
+    @Benchmark
+    public DepartmentTreeCache.Snapshot patchDepartment() {
+        patch();
+        return cache.getSnapshot();
+    }
+
+    @Benchmark
+    public String patchAndRender() {
+        patch();
+        return cache.getSnapshot().getEtag();
+    }
+
+    /**
+     * 不在事务中，修补立即生效
+     */
+    private void patch() {
+        int n = patchCount++;
+        patched.setName("部门" + n);
+        patched.setParentCode("D" + (n % fanout));
+        cache.put(patched);
+    }
+}
@@ -0,0 +1,109 @@
+package com.userdept.system.bench;
+
+import com.userdept.system.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 生成与校验（每个认证请求都会执行校验）
+ * <p>
+ * authenticate 为认证过滤器当前每个请求的调用路径（一次校验，重复 Token 命中缓存）；
+ * baselineAuthenticate 复现改造前的路径：extractUsername 与 validateToken 共解析三次，
+ * 每次解析都重新创建签名密钥和解析器。两者对比即为改造带来的收益。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+
+    private UserDetails userDetails;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = BenchSupport.jwtUtil();
+        userDetails = new User("zhangsan", "", List.of());
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    /**
+     * 认证过滤器当前的调用路径
+     */
+    @Benchmark
+    public Boolean authenticate() {
+        JwtUtil.VerifiedToken verifiedToken = jwtUtil.verifyToken(token);
+        return verifiedToken.username() != null && jwtUtil.validateToken(verifiedToken, userDetails);
+    }
+
+    /**
+     * 改造前认证过滤器的调用路径
+     */
+    @Benchmark
+    public Boolean baselineAuthenticate() {
+        String username = baselineClaims(token).getSubject();
+        // 原 validateToken 再次分别解析用户名与过期时间
+        return username != null
+                && baselineClaims(token).getSubject().equals(userDetails.getUsername())
+                && !baselineClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(userDetails);
+    }
+
+    /**
+     * 命中已校验 Token 缓存
+     */
+    @Benchmark
+    public Boolean validateCachedToken() {
+        return jwtUtil.validateToken(token, userDetails);
+    }
+
+    /**
+     * 完整解析并验签
+     */
+    @Benchmark
+    public String parseToken() {
+        return jwtUtil.extractClaim(token, claims -> claims.getSubject());
+    }
+
+    /**
+     * 改造前的单次解析：每次创建签名密钥与解析器
+     */
+    @Benchmark
+    public String baselineParseToken() {
+        return baselineClaims(token).getSubject();
+    }
+
+    private static Claims baselineClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(BenchSupport.JWT_SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,54 @@
+package com.userdept.system.bench;
+
+import com.userdept.system.utils.PasswordUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt 密码哈希与校验（登录、创建用户、修改密码）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordBenchmark {
+
+    private static final String PASSWORD = "xff123456";
+
+    @Param({"10", "12"})
+    private int cost;
+
+    private String salt;
+
+    private String hashedPassword;
+
+    @Setup
+    public void setup() {
+        salt = BCrypt.gensalt(cost);
+        hashedPassword = PasswordUtil.hashPassword(PASSWORD, salt);
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return PasswordUtil.hashPassword(PASSWORD, salt);
+    }
+
+    @Benchmark
+    public boolean checkPassword() {
+        return PasswordUtil.checkPassword(PASSWORD, hashedPassword);
+    }
+}
@@ -0,0 +1,138 @@
+package com.userdept.system.bench.db;
+
+import org.flywaydb.core.Flyway;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+/**
+ * 数据库基准测试的测试库
+ * <p>
+ * 连接参数与 application.yml 相同（环境变量 DB_HOST、DB_PORT、DB_USER、DB_PASSWORD），
+ * 库名为 BENCH_DB_NAME（默认 user_dept_bench），不存在时创建并执行 Flyway 迁移。
+ * 数据只在行数不足时补齐，重复运行无需重新生成。需要有建库权限的账号，如 docker-compose 中的 root。
+ */
+final class BenchDatabase {
+
+    private static final int BATCH_SIZE = 5000;
+
+    private BenchDatabase() {
+    }
+
+    static Connection connect() throws SQLException {
+        String server = "jdbc:mysql://" + env("DB_HOST", "localhost") + ":" + env("DB_PORT", "3306");
+        String database = env("BENCH_DB_NAME", "user_dept_bench");
+        String user = env("DB_USER", "user_dept");
+        String password = env("DB_PASSWORD", "user_dept_pwd");
+        try (Connection connection = DriverManager.getConnection(server, user, password);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE IF NOT EXISTS `" + database + "` DEFAULT CHARSET utf8mb4");
+        }
+        String url = server + "/" + database
+                + "?useUnicode=true&characterEncoding=utf8&serverTimezone=Asia/Shanghai"
+                + "&rewriteBatchedStatements=true&useServerPrepStmts=true&cachePrepStmts=true";
+        Flyway.configure().dataSource(url, user, password).load().migrate();
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * 补齐用户数据：bench{i}，每个用户属于两个部门 D{i % departments}、D{(i + 7) % departments}
+     */
+    static void seedUsers(Connection connection, int count, int departments) throws SQLException {
+        int existing = count(connection, "SELECT COUNT(*) FROM user WHERE username LIKE 'bench%'");
+        if (existing >= count) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        connection.setAutoCommit(false);
+        try (PreparedStatement user = connection.prepareStatement(
+                "INSERT IGNORE INTO user (username, realname, mobile, email, sex, status, created_time, updated_time) "
+                        + "VALUES (?, ?, ?, ?, ?, 1, ?, ?)");
+             PreparedStatement relation = connection.prepareStatement(
+                     "INSERT IGNORE INTO user_department (username, department_code) VALUES (?, ?)")) {
+            for (int i = existing; i < count; i++) {
+                String username = "bench" + i;
+                user.setString(1, username);
+                user.setString(2, "用户" + i);
+                user.setString(3, String.format("138%08d", i));
+                user.setString(4, username + "@example.com");
+                user.setInt(5, i % 2 + 1);
+                user.setObject(6, now);
+                user.setObject(7, now);
+                user.addBatch();
+                for (int j = 0; j < 2; j++) {
+                    relation.setString(1, username);
+                    relation.setString(2, "D" + ((i + j * 7) % departments));
+                    relation.addBatch();
+                }
+                if ((i + 1) % BATCH_SIZE == 0 || i + 1 == count) {
+                    user.executeBatch();
+                    relation.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        analyze(connection, "user", "user_department");
+    }
+
+    /**
+     * 补齐部门数据：D{i}，按层序排列，每个部门有 fanout 个子部门
+     */
+    static void seedDepartments(Connection connection, int count, int fanout) throws SQLException {
+        int existing = count(connection, "SELECT COUNT(*) FROM department WHERE code LIKE 'D%'");
+        if (existing >= count) {
+            return;
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT IGNORE INTO department (code, parent_code, path, name, description) VALUES (?, ?, ?, ?, ?)")) {
+            String[] paths = new String[count];
+            for (int i = 0; i < count; i++) {
+                String parentCode = i == 0 ? "" : "D" + ((i - 1) / fanout);
+                paths[i] = (i == 0 ? "/" : paths[(i - 1) / fanout]) + "D" + i + "/";
+                if (i < existing) {
+                    continue;
+                }
+                insert.setString(1, "D" + i);
+                insert.setString(2, parentCode);
+                insert.setString(3, paths[i]);
+                insert.setString(4, "部门" + i);
+                insert.setString(5, "第 " + i + " 个部门，负责年级教学与教研工作");
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0 || i + 1 == count) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        analyze(connection, "department");
+    }
+
+    private static int count(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void analyze(Connection connection, String... tables) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE " + String.join(", ", tables));
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,132 @@
+package com.userdept.system.bench.db;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.userdept.system.cache.DepartmentTreeCache;
+import com.userdept.system.entity.Department;
+import com.userdept.system.mapper.DepartmentMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 部门搜索第一页：内存快照与 LIKE 查询对比
+ * <p>
+ * likePage 为改动前的查询：COUNT 加 ORDER BY id DESC LIMIT ?, ?，条件为编号、名称、描述三列 {@code LIKE '%q%'}；
+ * snapshotPage 与 getDepartmentPage 一致：在 {@link DepartmentTreeCache} 快照中搜索后截取一页，不访问数据库。
+ * 关键词分别命中编号、名称和全部部门的描述。需要 MySQL，见 {@link BenchDatabase}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DepartmentSearchBenchmark {
+
+    private static final String COLUMNS = "id, code, parent_code, path, name, description, creator, modifier, "
+            + "created_time, updated_time";
+
+    private static final String LIKE_CONDITION = "(code LIKE ? OR name LIKE ? OR description LIKE ?)";
+
+    @Param({"10000"})
+    private int departments;
+
+    @Param({"D1234", "部门99", "教研"})
+    private String query;
+
+    @Param({"20"})
+    private int perPage;
+
+    private Connection connection;
+
+    private DepartmentTreeCache cache;
+
+    private PreparedStatement likeCount;
+
+    private PreparedStatement likeQuery;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = BenchDatabase.connect();
+        BenchDatabase.seedDepartments(connection, departments, 10);
+        List<Department> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id, code, parent_code, path, name, description FROM department")) {
+            while (rs.next()) {
+                Department dept = new Department();
+                dept.setId(rs.getLong(1));
+                dept.setCode(rs.getString(2));
+                dept.setParentCode(rs.getString(3));
+                dept.setPath(rs.getString(4));
+                dept.setName(rs.getString(5));
+                dept.setDescription(rs.getString(6));
+                rows.add(dept);
+            }
+        }
+        DepartmentMapper mapper = (DepartmentMapper) Proxy.newProxyInstance(DepartmentMapper.class.getClassLoader(),
+                new Class<?>[]{DepartmentMapper.class}, (proxy, method, args) -> {
+                    if ("selectList".equals(method.getName())) {
+                        return rows;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        cache = new DepartmentTreeCache(mapper, new ObjectMapper().registerModule(new JavaTimeModule()));
+        cache.reload();
+        likeCount = connection.prepareStatement("SELECT COUNT(*) FROM department WHERE " + LIKE_CONDITION);
+        likeQuery = connection.prepareStatement(
+                "SELECT " + COLUMNS + " FROM department WHERE " + LIKE_CONDITION + " ORDER BY id DESC LIMIT ?, ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int likePage() throws SQLException {
+        String pattern = "%" + query + "%";
+        int total;
+        bindLike(likeCount, pattern);
+        try (ResultSet rs = likeCount.executeQuery()) {
+            rs.next();
+            total = rs.getInt(1);
+        }
+        bindLike(likeQuery, pattern);
+        likeQuery.setInt(4, 0);
+        likeQuery.setInt(5, perPage);
+        return total + UserPaginationBenchmark.drain(likeQuery);
+    }
+
+    @Benchmark
+    public List<Department> snapshotPage() {
+        List<Department> matched = cache.getSnapshot().search(query);
+        return new ArrayList<>(matched.subList(0, Math.min(perPage, matched.size())));
+    }
+
+    private static void bindLike(PreparedStatement statement, String pattern) throws SQLException {
+        for (int i = 1; i <= 3; i++) {
+            statement.setString(i, pattern);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.userdept.system.bench.db;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户列表 OFFSET 分页与游标分页对比（100 万用户）
+ * <p>
+ * offsetPage 与分页插件生成的语句一致：先 COUNT，再 ORDER BY id DESC LIMIT ?, ?；
+ * cursorPage 与 getUsersAfter 一致：WHERE id &lt; ? ORDER BY id DESC LIMIT ?，不执行 COUNT。
+ * page 为页码，游标取上一页最后一条记录的 ID。需要 MySQL，见 {@link BenchDatabase}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPaginationBenchmark {
+
+    private static final String COLUMNS = "id, username, realname, password, salt, mobile, idno, sex, email, status, "
+            + "user_ext, creator, modifier, created_time, updated_time";
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"1", "1000", "49000"})
+    private int page;
+
+    @Param({"20"})
+    private int perPage;
+
+    private Connection connection;
+
+    private PreparedStatement count;
+
+    private PreparedStatement offsetQuery;
+
+    private PreparedStatement cursorQuery;
+
+    private long cursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = BenchDatabase.connect();
+        BenchDatabase.seedUsers(connection, users, 1000);
+        count = connection.prepareStatement("SELECT COUNT(*) FROM user");
+        offsetQuery = connection.prepareStatement("SELECT " + COLUMNS + " FROM user ORDER BY id DESC LIMIT ?, ?");
+        cursorQuery = connection.prepareStatement("SELECT " + COLUMNS + " FROM user WHERE id < ? ORDER BY id DESC LIMIT ?");
+        cursor = Long.MAX_VALUE;
+        if (page > 1) {
+            try (PreparedStatement previous = connection.prepareStatement(
+                    "SELECT id FROM user ORDER BY id DESC LIMIT ?, 1")) {
+                previous.setLong(1, (long) (page - 1) * perPage - 1);
+                try (ResultSet rs = previous.executeQuery()) {
+                    rs.next();
+                    cursor = rs.getLong(1);
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int offsetPage() throws SQLException {
+        int rows;
+        try (ResultSet rs = count.executeQuery()) {
+            rs.next();
+            rows = rs.getInt(1);
+        }
+        offsetQuery.setLong(1, (long) (page - 1) * perPage);
+        offsetQuery.setInt(2, perPage);
+        return rows + drain(offsetQuery);
+    }
+
+    @Benchmark
+    public int cursorPage() throws SQLException {
+        cursorQuery.setLong(1, cursor);
+        // 多取一条用于判断是否存在下一页
+        cursorQuery.setInt(2, perPage + 1);
+        return drain(cursorQuery);
+    }
+
+    static int drain(PreparedStatement statement) throws SQLException {
+        int rows = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rs.getLong(1);
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,122 @@
+package com.userdept.system.bench.db;
+
+import com.userdept.system.search.NgramIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户搜索第一页：n-gram 索引与 LIKE 查询对比（100 万用户）
+ * <p>
+ * likePage 与数据库回退路径一致：COUNT 加 ORDER BY id DESC LIMIT ?, ?，条件为三列 {@code LIKE '%q%'}；
+ * ngramPage 与索引路径一致：内存索引得到排序后的ID列表（总数即列表长度），再按ID回表查询一页。
+ * 关键词分别命中唯一用户名、大量中文姓名前缀、大量手机号子串。需要 MySQL，见 {@link BenchDatabase}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class UserSearchBenchmark {
+
+    private static final String COLUMNS = "id, username, realname, password, salt, mobile, idno, sex, email, status, "
+            + "user_ext, creator, modifier, created_time, updated_time";
+
+    private static final String LIKE_CONDITION = "(username LIKE ? OR realname LIKE ? OR mobile LIKE ?)";
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"bench123456", "用户99999", "0012"})
+    private String query;
+
+    @Param({"20"})
+    private int perPage;
+
+    private Connection connection;
+
+    private NgramIndex index;
+
+    private PreparedStatement likeCount;
+
+    private PreparedStatement likeQuery;
+
+    private PreparedStatement hydrate;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = BenchDatabase.connect();
+        BenchDatabase.seedUsers(connection, users, 1000);
+        index = new NgramIndex();
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = statement.executeQuery("SELECT id, username, realname, mobile FROM user")) {
+                while (rs.next()) {
+                    index.put(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4));
+                }
+            }
+        }
+        likeCount = connection.prepareStatement("SELECT COUNT(*) FROM user WHERE " + LIKE_CONDITION);
+        likeQuery = connection.prepareStatement(
+                "SELECT " + COLUMNS + " FROM user WHERE " + LIKE_CONDITION + " ORDER BY id DESC LIMIT ?, ?");
+        hydrate = connection.prepareStatement("SELECT " + COLUMNS + " FROM user WHERE id IN ("
+                + String.join(", ", Collections.nCopies(perPage, "?")) + ")");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int likePage() throws SQLException {
+        String pattern = "%" + query + "%";
+        int total;
+        bindLike(likeCount, pattern);
+        try (ResultSet rs = likeCount.executeQuery()) {
+            rs.next();
+            total = rs.getInt(1);
+        }
+        bindLike(likeQuery, pattern);
+        likeQuery.setInt(4, 0);
+        likeQuery.setInt(5, perPage);
+        return total + UserPaginationBenchmark.drain(likeQuery);
+    }
+
+    @Benchmark
+    public int ngramPage() throws SQLException {
+        List<Long> ids = index.search(query);
+        List<Long> page = ids.subList(0, Math.min(perPage, ids.size()));
+        // 不足一页时用不存在的ID补齐参数
+        for (int i = 0; i < perPage; i++) {
+            hydrate.setLong(i + 1, i < page.size() ? page.get(i) : -1L);
+        }
+        return ids.size() + UserPaginationBenchmark.drain(hydrate);
+    }
+
+    private static void bindLike(PreparedStatement statement, String pattern) throws SQLException {
+        for (int i = 1; i <= 3; i++) {
+            statement.setString(i, pattern);
+        }
+    }
+}
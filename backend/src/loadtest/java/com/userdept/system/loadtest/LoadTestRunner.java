@@ -0,0 +1,266 @@
+package com.userdept.system.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.userdept.system.UserDeptSystemApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 认证链路压测工具
+ * <p>
+ * 以固定并发的闭环方式压测登录接口与带 Token 的用户列表接口，
+ * 每个场景输出 HdrHistogram 延迟分布（.hgrm）并汇总到 summary.json，便于对比不同版本。
+ * 未指定 loadtest.base-url 时在进程内以随机端口启动应用，连接本地 MySQL 与 Redis
+ * （可用 {@code docker compose up -d db redis} 启动）。
+ * <p>
+ * 运行方式：{@code mvn -Ploadtest compile exec:java -Dloadtest.concurrency=64 -Dloadtest.duration=60}
+ * <ul>
+ *     <li>loadtest.base-url：被测服务地址，为空时进程内启动</li>
+ *     <li>loadtest.username / loadtest.password：登录账号，默认 admin / admin123</li>
+ *     <li>loadtest.concurrency：并发数，默认 32</li>
+ *     <li>loadtest.warmup / loadtest.duration：预热与压测时长（秒），默认 10 / 30</li>
+ *     <li>loadtest.scenarios：要执行的场景，逗号分隔，默认 login,users</li>
+ *     <li>loadtest.profiles：进程内启动时激活的配置文件，默认 dev（对比虚拟线程时使用 dev,virtual-threads）</li>
+ *     <li>loadtest.output-dir：结果输出目录，默认 target/loadtest</li>
+ *     <li>loadtest.version：写入 summary.json 的版本标识，默认为项目版本</li>
+ * </ul>
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    /**
+     * 可记录的最大延迟（微秒）
+     */
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final String baseUrl;
+    private final String username;
+    private final String password;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final HttpClient httpClient;
+
+    public LoadTestRunner(String baseUrl, String username, String password, int concurrency,
+                          Duration warmup, Duration duration) {
+        this.baseUrl = baseUrl;
+        this.username = username;
+        this.password = password;
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.base-url", "");
+        String username = System.getProperty("loadtest.username", "admin");
+        String password = System.getProperty("loadtest.password", "admin123");
+        int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("loadtest.warmup", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.duration", 30));
+        List<String> scenarios = List.of(System.getProperty("loadtest.scenarios", "login,users").split(","));
+        String profiles = System.getProperty("loadtest.profiles", "dev");
+        Path outputDir = Paths.get(System.getProperty("loadtest.output-dir", "target/loadtest"));
+
+        ConfigurableApplicationContext context = null;
+        if (baseUrl.isEmpty()) {
+            context = SpringApplication.run(UserDeptSystemApplication.class,
+                    "--server.port=0",
+                    "--spring.profiles.active=" + profiles,
+                    "--system.admin.username=" + username,
+                    "--system.admin.password=" + password,
+                    "--logging.level.com.userdept.system=INFO",
+                    "--mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl");
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port;
+        }
+
+        try {
+            LoadTestRunner runner = new LoadTestRunner(baseUrl, username, password, concurrency, warmup, duration);
+            List<ScenarioResult> results = new ArrayList<>();
+            for (String scenario : scenarios) {
+                results.add(runner.run(scenario.trim()));
+            }
+            writeResults(outputDir, baseUrl, concurrency, results);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * 执行一个场景：先预热，再正式压测
+     */
+    public ScenarioResult run(String scenario) throws Exception {
+        HttpRequest request = switch (scenario) {
+            case "login" -> loginRequest();
+            case "users" -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/users?page=1&per_page=10"))
+                    .header("Authorization", "Bearer " + login())
+                    .GET()
+                    .build();
+            default -> throw new IllegalArgumentException("未知的压测场景: " + scenario);
+        };
+
+        log.info("场景 {} 预热 {} 秒，并发 {}", scenario, warmup.toSeconds(), concurrency);
+        drive(request, warmup);
+        log.info("场景 {} 压测 {} 秒，并发 {}", scenario, duration.toSeconds(), concurrency);
+        ScenarioResult result = drive(request, duration).toResult(scenario);
+        log.info("场景 {} 完成: 请求数={}，错误数={}，吞吐={}/秒，p99={}ms",
+                scenario, result.requests(), result.errors(),
+                String.format("%.1f", result.throughput()), result.percentilesMs().get("p99"));
+        return result;
+    }
+
+    /**
+     * 以固定并发循环发送请求直到截止时间，各线程独立记录延迟后合并
+     */
+    private Measurement drive(HttpRequest request, Duration length) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long deadline = start + length.toNanos();
+        try {
+            List<Future<Measurement>> futures = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                Callable<Measurement> worker = () -> {
+                    Measurement measurement = new Measurement();
+                    while (System.nanoTime() < deadline) {
+                        long begin = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (IOException e) {
+                            ok = false;
+                        }
+                        measurement.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin), ok);
+                    }
+                    return measurement;
+                };
+                futures.add(executor.submit(worker));
+            }
+            Measurement total = new Measurement();
+            for (Future<Measurement> future : futures) {
+                total.merge(future.get());
+            }
+            total.elapsedNanos = System.nanoTime() - start;
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private HttpRequest loginRequest() throws IOException {
+        Map<String, String> body = Map.of("username", username, "password", password);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(OBJECT_MAPPER.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private String login() throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(loginRequest(), HttpResponse.BodyHandlers.ofString());
+        JsonNode token = OBJECT_MAPPER.readTree(response.body()).path("data");
+        if (response.statusCode() != 200 || !token.isTextual()) {
+            throw new IllegalStateException("登录失败: " + response.body());
+        }
+        return token.asText();
+    }
+
+    private static void writeResults(Path outputDir, String baseUrl, int concurrency,
+                                     List<ScenarioResult> results) throws IOException {
+        Files.createDirectories(outputDir);
+        for (ScenarioResult result : results) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(outputDir.resolve(result.scenario() + ".hgrm")))) {
+                // 以毫秒为单位输出延迟分布
+                result.histogram().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("timestamp", Instant.now().toString());
+        summary.put("version", System.getProperty("loadtest.version"));
+        summary.put("baseUrl", baseUrl);
+        summary.put("concurrency", concurrency);
+        summary.put("scenarios", results);
+        OBJECT_MAPPER.writeValue(outputDir.resolve("summary.json").toFile(), summary);
+        log.info("压测结果已写入 {}", outputDir.toAbsolutePath());
+    }
+
+    /**
+     * 单线程或合并后的测量数据
+     */
+    private static final class Measurement {
+
+        private final Histogram histogram = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+
+        private long errors;
+
+        private long elapsedNanos;
+
+        void record(long micros, boolean ok) {
+            histogram.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void merge(Measurement other) {
+            histogram.add(other.histogram);
+            errors += other.errors;
+        }
+
+        ScenarioResult toResult(String scenario) {
+            long requests = histogram.getTotalCount();
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+            percentiles.put("p90", histogram.getValueAtPercentile(90) / 1000.0);
+            percentiles.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+            percentiles.put("p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+            percentiles.put("max", histogram.getMaxValue() / 1000.0);
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            return new ScenarioResult(scenario, requests, errors, seconds,
+                    requests / seconds, percentiles, histogram);
+        }
+    }
+
+    /**
+     * 场景结果，延迟单位为毫秒
+     */
+    public record ScenarioResult(String scenario, long requests, long errors, double durationSeconds,
+                                 double throughput, Map<String, Double> percentilesMs,
+                                 @JsonIgnore Histogram histogram) {
+    }
+}
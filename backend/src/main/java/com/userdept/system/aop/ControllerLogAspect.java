@@ -7,58 +7,114 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.springframework.stereotype.Component;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * 通用 Controller 日志切面
+ * <p>
+ * 使用独立的日志名 {@value #LOGGER_NAME}，默认 INFO，不受应用包日志级别影响；
+ * 未开启 DEBUG 时直接返回，不产生任何开销。开启时每个类的字段读取器只构建一次并缓存，
+ * 字段名包含 password 的字段输出为 ******，单条日志的参数与返回值各自限制长度。
  */
-@Slf4j
+@Slf4j(topic = ControllerLogAspect.LOGGER_NAME)
 @Aspect
 @Component
 public class ControllerLogAspect {
+
+    /**
+     * 日志名，排查问题时可通过 /actuator/loggers/controller.access 临时调为 DEBUG
+     */
+    public static final String LOGGER_NAME = "controller.access";
+
+    /**
+     * 参数与返回值各自的最大输出长度
+     */
+    private static final int MAX_OUTPUT_LENGTH = 1000;
+
+    private static final int MAX_DEPTH = 3;
+
+    private static final String MASK = "******";
+
+    private static final String APP_PACKAGE = "com.userdept.system.";
+
+    /**
+     * 类 -> 字段读取器，不展开字段的类为 null，直接使用 toString
+     */
+    private static final ClassValue<FieldAccessor[]> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected FieldAccessor[] computeValue(Class<?> type) {
+            return buildAccessors(type);
+        }
+    };
+
     /**
      * 过滤对象字段，忽略字段名包含 "list" 的内容，只输出类型和数量
      */
     private String filterObjectFields(Object obj) {
-        return filterObjectFields(obj, 0);
+        StringBuilder sb = new StringBuilder(128);
+        appendObject(sb, obj, 0);
+        return truncate(sb);
     }
 
     // 递归输出对象字段，遇到字段名包含 list 且为 Collection 时只输出类型和数量
-    private String filterObjectFields(Object obj, int depth) {
-        if (obj == null) return "null";
-        if (depth > 3) return obj.getClass().getSimpleName() + "{...}"; // 防止死循环
+    private void appendObject(StringBuilder sb, Object obj, int depth) {
+        if (obj == null) {
+            sb.append("null");
+            return;
+        }
+        if (isSimpleType(obj)) {
+            sb.append(obj);
+            return;
+        }
+        if (obj instanceof Collection) {
+            sb.append("Collection(size=").append(((Collection<?>) obj).size()).append(")");
+            return;
+        }
+        if (obj instanceof Map) {
+            sb.append("Map(size=").append(((Map<?, ?>) obj).size()).append(")");
+            return;
+        }
         Class<?> clazz = obj.getClass();
-        if (isSimpleType(obj)) return obj.toString();
-        if (obj instanceof java.util.Collection) {
-            return "Collection(size=" + ((java.util.Collection<?>) obj).size() + ")";
+        if (depth > MAX_DEPTH) { // 防止死循环
+            sb.append(clazz.getSimpleName()).append("{...}");
+            return;
+        }
+        FieldAccessor[] accessors = ACCESSORS.get(clazz);
+        if (accessors == null) {
+            sb.append(obj);
+            return;
         }
-        StringBuilder sb = new StringBuilder();
         sb.append(clazz.getSimpleName()).append("(");
-        java.lang.reflect.Field[] fields = clazz.getDeclaredFields();
-        for (java.lang.reflect.Field field : fields) {
-            field.setAccessible(true);
-            String name = field.getName();
+        for (int i = 0; i < accessors.length && sb.length() <= MAX_OUTPUT_LENGTH; i++) {
+            FieldAccessor accessor = accessors[i];
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(accessor.name).append("=");
             Object value;
             try {
-                value = field.get(obj);
-            } catch (IllegalAccessException e) {
-                sb.append(name).append("=unaccessible, ");
+                value = accessor.getter.invoke(obj);
+            } catch (Throwable e) {
+                sb.append("unaccessible");
                 continue;
             }
-            if (name.toLowerCase().contains("list") && value instanceof java.util.Collection) {
-                sb.append(name).append("=[size=").append(((java.util.Collection<?>) value).size()).append("]");
-            } else if (isSimpleType(value)) {
-                sb.append(name).append("=").append(value);
-            } else if (value instanceof java.util.Collection) {
-                sb.append(name).append("=Collection(size=").append(((java.util.Collection<?>) value).size()).append(")");
-            } else if (value != null) {
-                sb.append(name).append("=").append(filterObjectFields(value, depth + 1));
+            if (accessor.masked && value != null) {
+                sb.append(MASK);
+            } else if (accessor.listLike && value instanceof Collection) {
+                sb.append("[size=").append(((Collection<?>) value).size()).append("]");
             } else {
-                sb.append(name).append("=null");
+                appendObject(sb, value, depth + 1);
             }
-            sb.append(", ");
         }
-        if (fields.length > 0) sb.setLength(sb.length() - 2);
         sb.append(")");
-        return sb.toString();
     }
 
     /**
@@ -74,48 +130,76 @@ public class ControllerLogAspect {
                 clazz.isEnum();
     }
 
+    private static FieldAccessor[] buildAccessors(Class<?> clazz) {
+        // 只展开本项目的类型，JDK 与框架类型（如 LocalDateTime、HttpServletResponse）直接使用 toString
+        if (clazz.isArray() || !clazz.getName().startsWith(APP_PACKAGE)) {
+            return null;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+            List<FieldAccessor> accessors = new ArrayList<>();
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                String lowerName = field.getName().toLowerCase(Locale.ROOT);
+                accessors.add(new FieldAccessor(field.getName(), lookup.unreflectGetter(field),
+                        lowerName.contains("password"), lowerName.contains("list")));
+            }
+            return accessors.toArray(new FieldAccessor[0]);
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String truncate(StringBuilder sb) {
+        if (sb.length() > MAX_OUTPUT_LENGTH) {
+            sb.setLength(MAX_OUTPUT_LENGTH);
+            sb.append("...");
+        }
+        return sb.toString();
+    }
+
     // 切 Controller 层所有方法
     @Pointcut("within(com.userdept.system.controller..*)")
     public void controllerMethods() {}
 
     @AfterReturning(pointcut = "controllerMethods()", returning = "result")
     public void logAfter(JoinPoint joinPoint, Object result) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
         String className = joinPoint.getSignature().getDeclaringTypeName();
         String methodName = joinPoint.getSignature().getName();
         Object[] args = joinPoint.getArgs();
-        StringBuilder paramStr = new StringBuilder();
-        for (Object arg : args) {
-            if (arg == null) {
-                paramStr.append("null, ");
-            } else {
-                String argStr = arg.toString();
-                // 脱敏处理
-                if (argStr.toLowerCase().contains("password")) {
-                    argStr = argStr.replaceAll("(?i)password.?=.?[^,;\s]+", "password=******");
-                }
-                paramStr.append(argStr).append(", ");
+        // 参数按字段结构输出，password 字段脱敏
+        StringBuilder paramStr = new StringBuilder(128);
+        for (int i = 0; i < args.length && paramStr.length() <= MAX_OUTPUT_LENGTH; i++) {
+            if (i > 0) {
+                paramStr.append(", ");
             }
+            appendObject(paramStr, args[i], 0);
         }
-        if (paramStr.length() > 0) paramStr.setLength(paramStr.length() - 2);
 
         int resultID;
         String resultStr;
         if (result == null) {
             resultID = 1;
             resultStr = "null";
-        } else if (result instanceof java.util.Collection) {
+        } else if (result instanceof Collection) {
             resultID = 2;
-            resultStr = "Collection(size=" + ((java.util.Collection<?>) result).size() + ")";
+            resultStr = "Collection(size=" + ((Collection<?>) result).size() + ")";
         } else {
             resultID = 3;
-            try {
-                resultStr = filterObjectFields(result);
-            } catch (Exception e) {
-                String full = result.toString();
-                resultStr = full.length() > 200 ? full.substring(0, 200) + "..." : full;
-            }
+            resultStr = filterObjectFields(result);
         }
         log.debug("Result ID: {}", resultID);
-        log.debug("[Controller] {}.{} called, params: [{}], return: {}", className, methodName, paramStr, resultStr);
+        log.debug("[Controller] {}.{} called, params: [{}], return: {}", className, methodName, truncate(paramStr), resultStr);
+    }
+
+    /**
+     * 缓存的字段读取器
+     */
+    private record FieldAccessor(String name, MethodHandle getter, boolean masked, boolean listLike) {
     }
 }
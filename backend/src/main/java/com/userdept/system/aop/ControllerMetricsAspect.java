@@ -0,0 +1,67 @@
+package com.userdept.system.aop;
+
+import com.userdept.system.metrics.RequestSqlTrace;
+import com.userdept.system.metrics.SqlStatsCollector;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller 指标切面
+ * <p>
+ * 记录每个 Controller 方法的耗时（controller.method）以及方法执行期间的 SQL 语句数（controller.sql.statements），
+ * 与 mybatis.statement、password.hash.duration、jwt.duration 等指标一起定位延迟来源。
+ * 方法结束时将本次执行的 SQL 记录交给 {@link SqlStatsCollector} 检查重复执行的语句。
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ControllerMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final SqlStatsCollector sqlStatsCollector;
+
+    // 切 Controller 层所有方法
+    @Pointcut("within(com.userdept.system.controller..*)")
+    public void controllerMethods() {}
+
+    @Around("controllerMethods()")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String methodName = joinPoint.getSignature().getName();
+        RequestSqlTrace outer = RequestSqlTrace.begin();
+        long start = System.nanoTime();
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            RequestSqlTrace trace = RequestSqlTrace.end(outer);
+            Timer.builder("controller.method")
+                    .description("Controller 方法耗时")
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("exception", exception)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("controller.sql.statements")
+                    .description("Controller 方法执行期间的 SQL 语句数")
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .register(meterRegistry)
+                    .record(trace.getStatements());
+            sqlStatsCollector.onRequestEnd(className + "." + methodName, trace);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.userdept.system.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存失效通知
+ * <p>
+ * 通过 Redis 发布/订阅在多个后端节点间广播失效消息，收到其他节点的消息后交给按名称注册的处理器
+ * （实体缓存、成员关系索引）更新本地数据。
+ * 消息携带发布时间，从发布到本节点清除完成的耗时记录为 {@code entity.cache.invalidation.lag}，
+ * 即其他节点可能读到旧数据的时间窗口。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "cache:invalidate";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 当前节点标识，用于忽略自己发布的消息
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+
+    /**
+     * 注册处理其他节点失效消息的处理器
+     *
+     * @param name 缓存名称
+     * @param handler 处理器
+     */
+    public void register(String name, Handler handler) {
+        handlers.put(name, handler);
+    }
+
+    /**
+     * 广播失效消息，发送失败时仅记录日志（其他节点的本地缓存会在过期后自然失效）
+     */
+    public void publish(String cache, Long id, List<String> keys) {
+        try {
+            String payload = objectMapper.writeValueAsString(
+                    new InvalidationMessage(cache, id, keys, nodeId, System.currentTimeMillis()));
+            redisTemplate.convertAndSend(CHANNEL, payload);
+        } catch (IOException | RuntimeException e) {
+            log.warn("实体缓存失效消息发送失败: cache={}, id={}, keys={}, {}", cache, id, keys, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        InvalidationMessage invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), InvalidationMessage.class);
+        } catch (IOException e) {
+            log.warn("无法解析实体缓存失效消息: {}", e.getMessage());
+            return;
+        }
+        if (nodeId.equals(invalidation.node())) {
+            return;
+        }
+        Handler handler = handlers.get(invalidation.cache());
+        if (handler == null) {
+            return;
+        }
+        try {
+            handler.handle(invalidation.id(), invalidation.keys() == null ? List.of() : invalidation.keys());
+        } catch (RuntimeException e) {
+            log.warn("处理缓存失效消息失败: {}, {}", invalidation, e.getMessage());
+            return;
+        }
+        Timer.builder("entity.cache.invalidation.lag")
+                .description("失效消息从发布到本节点清除本地缓存的耗时")
+                .tag("cache", invalidation.cache())
+                .register(meterRegistry)
+                .record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - invalidation.publishedAt())));
+        log.debug("收到实体缓存失效消息: {}", invalidation);
+    }
+
+    /**
+     * 失效消息处理器
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * @param id 主键，可为空
+         * @param keys 业务键
+         */
+        void handle(Long id, List<String> keys);
+    }
+
+    /**
+     * 失效消息
+     */
+    record InvalidationMessage(String cache, Long id, List<String> keys, String node, long publishedAt) {
+    }
+}
@@ -0,0 +1,667 @@
+package com.userdept.system.cache;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.userdept.system.entity.Department;
+import com.userdept.system.mapper.DepartmentMapper;
+import com.userdept.system.search.NgramIndex;
+import com.userdept.system.utils.TransactionUtil;
+import com.userdept.system.vo.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * 部门树内存缓存
+ * <p>
+ * 持有一份不可变的部门树快照，通过 volatile 引用整体替换。部门的增删改只修补快照中受影响的条目：
+ * 节点表与子部门表在新旧快照间共享，修补的代价取决于修改的部门数而不是部门总数（见 {@link OverlayMap}）；
+ * 部门编号、名称、描述的 n-gram 搜索索引同步增量更新，部门搜索无需访问数据库；
+ * 部门树 JSON 与 ETag 在修补后首次请求时生成一次；
+ * 部门树的先序遍历序列（欧拉序）同样在树形结构变化后首次子树查询时生成一次，任一部门的全部下级部门是其中连续的一段，
+ * 只修改名称、描述等字段的修补沿用原序列。
+ * <p>
+ * 修补与失效都会在锁内递增版本号。从数据库加载的快照只有在加载期间版本号未变时才会安装，
+ * 否则丢弃重新加载，避免加载期间提交的修改被加载前读到的旧数据覆盖。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DepartmentTreeCache {
+
+    /**
+     * 加载期间快照被修改时的最大加载次数
+     */
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final DepartmentMapper departmentMapper;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 当前快照，null 表示尚未加载或已失效
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * 修补与失效的次数，由 stateLock 保护
+     */
+    private long version;
+
+    /**
+     * 保护快照替换与版本号。使用 ReentrantLock 而非 synchronized，避免虚拟线程被固定在载体线程上
+     */
+    private final ReentrantLock stateLock = new ReentrantLock();
+
+    /**
+     * 同一时间只有一个线程从数据库加载
+     */
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    /**
+     * 获取当前快照，首次访问或失效后从数据库加载
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        loadLock.lock();
+        try {
+            current = snapshot;
+            return current != null ? current : reload();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * 从数据库全量加载快照，加载期间发生修补或失效时丢弃结果重新加载
+     *
+     * @return 加载的快照；多次加载均被并发修改时返回最后一次的结果（不安装，下次访问重新加载）
+     */
+    public Snapshot reload() {
+        Snapshot loaded = null;
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            long startVersion = currentVersion();
+            loaded = Snapshot.load(departmentMapper.selectList(null), objectMapper);
+            stateLock.lock();
+            try {
+                if (version == startVersion) {
+                    snapshot = loaded;
+                    log.debug("部门树快照已加载，部门数: {}", loaded.size());
+                    return loaded;
+                }
+            } finally {
+                stateLock.unlock();
+            }
+            log.debug("部门树加载期间发生修改，丢弃本次加载结果");
+        }
+        return loaded;
+    }
+
+    /**
+     * 丢弃当前快照，下次访问时从数据库重新加载（其他节点修改部门后调用）
+     */
+    public void invalidate() {
+        stateLock.lock();
+        try {
+            version++;
+            snapshot = null;
+        } finally {
+            stateLock.unlock();
+        }
+        log.debug("部门树快照已失效");
+    }
+
+    /**
+     * 新增或更新部门节点（事务提交后生效），父部门变化时同时移动到新父部门下
+     */
+    public void put(Department department) {
+        Department node = copyOf(department);
+        TransactionUtil.afterCommit(() -> patch(current -> current.patch(List.of(node), List.of())));
+    }
+
+    /**
+     * 移动部门（事务提交后生效）：部门挂到新父部门下，其下级部门的路径前缀同步改写
+     *
+     * @param department 移动后的部门
+     * @param oldPath 移动前的路径
+     */
+    public void move(Department department, String oldPath) {
+        Department node = copyOf(department);
+        TransactionUtil.afterCommit(() -> patch(current -> current.move(node, oldPath)));
+    }
+
+    /**
+     * 删除部门节点（事务提交后生效）
+     */
+    public void remove(String code) {
+        removeAll(List.of(code));
+    }
+
+    /**
+     * 删除一组部门节点（事务提交后生效），用于级联删除子树
+     */
+    public void removeAll(Collection<String> codes) {
+        List<String> removals = List.copyOf(codes);
+        TransactionUtil.afterCommit(() -> patch(current -> current.patch(List.of(), removals)));
+    }
+
+    private long currentVersion() {
+        stateLock.lock();
+        try {
+            return version;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private void patch(UnaryOperator<Snapshot> patcher) {
+        stateLock.lock();
+        try {
+            version++;
+            // 尚未加载时无需修补，首次访问会全量加载；版本号已递增，进行中的加载会被丢弃
+            if (snapshot != null) {
+                snapshot = patcher.apply(snapshot);
+            }
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * 复制部门（不含子节点）。搜索结果可能包含全部部门，逐字段复制而不使用反射
+     */
+    private static Department copyOf(Department department) {
+        Department copy = new Department();
+        copy.setId(department.getId());
+        copy.setCode(department.getCode());
+        copy.setParentCode(department.getParentCode());
+        copy.setPath(department.getPath());
+        copy.setName(department.getName());
+        copy.setDescription(department.getDescription());
+        copy.setCreator(department.getCreator());
+        copy.setModifier(department.getModifier());
+        copy.setCreatedTime(department.getCreatedTime());
+        copy.setUpdatedTime(department.getUpdatedTime());
+        return copy;
+    }
+
+    /**
+     * 父部门编号，顶级部门为空字符串
+     */
+    private static String parentKey(Department department) {
+        return StringUtils.hasText(department.getParentCode()) ? department.getParentCode() : "";
+    }
+
+    /**
+     * 不可变的部门树快照，对外返回的部门均为副本
+     */
+    public static final class Snapshot {
+
+        private static final String ROOT = "";
+
+        /**
+         * 部门编号 -> 部门（不含子节点）
+         */
+        private final OverlayMap<String, Department> nodes;
+
+        /**
+         * 父部门编号 -> 子部门编号（按ID升序），顶级部门的父编号为空字符串
+         */
+        private final OverlayMap<String, List<String>> children;
+
+        /**
+         * 部门ID -> 部门编号
+         */
+        private final OverlayMap<Long, String> codesById;
+
+        /**
+         * 部门编号、名称、描述的搜索索引，与修补得到的后续快照共享
+         */
+        private final NgramIndex searchIndex;
+
+        private final ObjectMapper objectMapper;
+
+        /**
+         * 序列化后的响应体与 ETag，首次请求时生成
+         */
+        private volatile Rendered rendered;
+
+        /**
+         * 部门树的先序遍历区间索引，首次子树查询时生成；树形结构未变化的修补与前一快照共享
+         */
+        private volatile Tour tour;
+
+        private Snapshot(OverlayMap<String, Department> nodes, OverlayMap<String, List<String>> children,
+                         OverlayMap<Long, String> codesById, NgramIndex searchIndex, ObjectMapper objectMapper,
+                         Tour tour) {
+            this.nodes = nodes;
+            this.children = children;
+            this.codesById = codesById;
+            this.searchIndex = searchIndex;
+            this.objectMapper = objectMapper;
+            this.tour = tour;
+        }
+
+        private static Snapshot load(List<Department> rows, ObjectMapper objectMapper) {
+            Map<String, Department> nodes = new HashMap<>();
+            Map<Long, String> codesById = new HashMap<>();
+            Map<String, List<Department>> grouped = new HashMap<>();
+            NgramIndex searchIndex = new NgramIndex();
+            for (Department row : rows) {
+                Department node = copyOf(row);
+                nodes.put(node.getCode(), node);
+                codesById.put(node.getId(), node.getCode());
+                searchIndex.put(node.getId(), node.getCode(), node.getName(), node.getDescription());
+                grouped.computeIfAbsent(parentKey(node), k -> new ArrayList<>()).add(node);
+            }
+            Map<String, List<String>> children = new HashMap<>();
+            grouped.forEach((parentCode, list) -> {
+                list.sort(Comparator.comparing(Department::getId));
+                children.put(parentCode, list.stream().map(Department::getCode).toList());
+            });
+            return new Snapshot(new OverlayMap<>(nodes), new OverlayMap<>(children), new OverlayMap<>(codesById),
+                    searchIndex, objectMapper, null);
+        }
+
+        /**
+         * 树形结构的根部门列表（每次返回新的副本）
+         */
+        public List<Department> getTree() {
+            List<Department> roots = assemble(ROOT);
+            return roots == null ? List.of() : roots;
+        }
+
+        public byte[] getJson() {
+            return rendered().json().clone();
+        }
+
+        /**
+         * 响应体的 ETag
+         */
+        public String getEtag() {
+            return rendered().etag();
+        }
+
+        public int size() {
+            return nodes.size();
+        }
+
+        /**
+         * 按编号获取部门（不含子节点），不存在时返回 null
+         *
+         * @param code 部门编号
+         * @return 部门副本
+         */
+        public Department get(String code) {
+            Department dept = nodes.get(code);
+            return dept == null ? null : copyOf(dept);
+        }
+
+        /**
+         * 按编号、名称、描述搜索部门（子串匹配，完全匹配与前缀匹配优先）
+         *
+         * @param search 关键词
+         * @return 按相关度排序的只读列表，每次读取元素时返回部门副本（不含子节点），分页时只复制当前页
+         */
+        public List<Department> search(String search) {
+            List<Long> ids = searchIndex.search(search);
+            List<Department> matched = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                // 搜索索引与后续快照共享，可能包含本快照之后新增的部门
+                String code = codesById.get(id);
+                Department dept = code == null ? null : nodes.get(code);
+                if (dept != null) {
+                    matched.add(dept);
+                }
+            }
+            return new AbstractList<>() {
+                @Override
+                public Department get(int index) {
+                    return copyOf(matched.get(index));
+                }
+
+                @Override
+                public int size() {
+                    return matched.size();
+                }
+            };
+        }
+
+        /**
+         * 部门及其全部下级部门的编号（先序），部门不在树中（父部门不存在或处于环中）时返回空列表
+         *
+         * @param code 部门编号
+         * @return 部门编号列表，第一个为部门自身
+         */
+        public List<String> getSubtreeCodes(String code) {
+            Tour current = tour();
+            Integer start = current.tourIndex().get(code);
+            if (start == null) {
+                return List.of();
+            }
+            return Collections.unmodifiableList(Arrays.asList(current.tour()).subList(start, current.subtreeEnd()[start]));
+        }
+
+        /**
+         * 应用一组修改，返回新的快照；本快照保持不变（搜索索引除外）
+         *
+         * @param upserts 新增或更新的部门
+         * @param removals 删除的部门编号
+         */
+        private Snapshot patch(Collection<Department> upserts, Collection<String> removals) {
+            Patch patch = new Patch();
+            removals.forEach(patch::remove);
+            upserts.forEach(patch::put);
+            return patch.apply();
+        }
+
+        /**
+         * 移动部门，返回新的快照：部门重新挂到新父部门下，下级部门只改写路径前缀，
+         * 代价与子树大小成正比
+         *
+         * @param department 移动后的部门
+         * @param oldPath 移动前的路径
+         */
+        private Snapshot move(Department department, String oldPath) {
+            Patch patch = new Patch();
+            patch.put(department);
+            Deque<String> stack = new ArrayDeque<>(patch.childCodes(department.getCode()));
+            while (!stack.isEmpty()) {
+                String code = stack.pop();
+                Department node = copyOf(nodes.get(code));
+                if (node.getPath() != null && node.getPath().startsWith(oldPath)) {
+                    node.setPath(department.getPath() + node.getPath().substring(oldPath.length()));
+                }
+                patch.replace(node);
+                stack.addAll(patch.childCodes(code));
+            }
+            return patch.apply();
+        }
+
+        private Tour tour() {
+            Tour current = tour;
+            if (current == null) {
+                // 并发首次查询可能重复生成，结果相同
+                current = buildTour();
+                tour = current;
+            }
+            return current;
+        }
+
+        /**
+         * 先序遍历部门树，记录每个部门的位置与子树区间（使用显式栈，深层级的部门树也不会栈溢出）；
+         * 父部门不存在或处于环中的部门从顶级部门不可达，不会出现在序列中
+         */
+        private Tour buildTour() {
+            String[] codes = new String[nodes.size()];
+            int[] parent = new int[codes.length];
+            Map<String, Integer> tourIndex = new HashMap<>();
+            Deque<String> stack = new ArrayDeque<>();
+            Deque<Integer> parentStack = new ArrayDeque<>();
+            pushChildren(ROOT, -1, stack, parentStack);
+            int count = 0;
+            while (!stack.isEmpty()) {
+                String code = stack.pop();
+                int position = count++;
+                codes[position] = code;
+                parent[position] = parentStack.pop();
+                tourIndex.put(code, position);
+                pushChildren(code, position, stack, parentStack);
+            }
+            // 逆序累加子树大小：先序中子节点总在父节点之后
+            int[] size = new int[count];
+            int[] subtreeEnd = new int[count];
+            for (int position = count - 1; position >= 0; position--) {
+                size[position]++;
+                if (parent[position] >= 0) {
+                    size[parent[position]] += size[position];
+                }
+                subtreeEnd[position] = position + size[position];
+            }
+            return new Tour(Arrays.copyOf(codes, count), tourIndex, subtreeEnd);
+        }
+
+        private void pushChildren(String parentCode, int parentPosition, Deque<String> stack, Deque<Integer> parentStack) {
+            List<String> childCodes = children.get(parentCode);
+            if (childCodes == null) {
+                return;
+            }
+            for (int i = childCodes.size() - 1; i >= 0; i--) {
+                stack.push(childCodes.get(i));
+                parentStack.push(parentPosition);
+            }
+        }
+
+        private Rendered rendered() {
+            Rendered current = rendered;
+            if (current == null) {
+                // 并发首次请求可能重复生成，结果相同
+                byte[] json;
+                try {
+                    json = objectMapper.writeValueAsBytes(ApiResponse.success(getTree()));
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("部门树序列化失败", e);
+                }
+                current = new Rendered(json, "\"" + DigestUtil.md5Hex(json) + "\"");
+                rendered = current;
+            }
+            return current;
+        }
+
+        /**
+         * 构建树形结构，父部门不存在或处于环中的节点不会出现在树中
+         */
+        private List<Department> assemble(String parentCode) {
+            List<String> childCodes = children.get(parentCode);
+            if (childCodes == null || childCodes.isEmpty()) {
+                return null;
+            }
+            List<Department> result = new ArrayList<>(childCodes.size());
+            for (String childCode : childCodes) {
+                Department node = copyOf(nodes.get(childCode));
+                node.setChildren(assemble(childCode));
+                result.add(node);
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        /**
+         * 一次修补中累积的修改，值为 null 表示删除
+         */
+        private final class Patch {
+
+            private final Map<String, Department> nodeChanges = new HashMap<>();
+
+            private final Map<String, List<String>> childChanges = new HashMap<>();
+
+            private final Map<Long, String> idChanges = new HashMap<>();
+
+            void put(Department dept) {
+                Department old = node(dept.getCode());
+                String parentCode = parentKey(dept);
+                nodeChanges.put(dept.getCode(), dept);
+                if (old == null || !parentCode.equals(parentKey(old))) {
+                    if (old != null) {
+                        unlink(parentKey(old), old.getCode());
+                    }
+                    link(parentCode, dept);
+                }
+                if (old != null && !old.getId().equals(dept.getId())) {
+                    idChanges.put(old.getId(), null);
+                }
+                idChanges.put(dept.getId(), dept.getCode());
+                searchIndex.put(dept.getId(), dept.getCode(), dept.getName(), dept.getDescription());
+            }
+
+            /**
+             * 替换部门的其他字段，父部门、ID 与搜索字段不变
+             */
+            void replace(Department dept) {
+                nodeChanges.put(dept.getCode(), dept);
+            }
+
+            void remove(String code) {
+                Department old = node(code);
+                if (old == null) {
+                    return;
+                }
+                nodeChanges.put(code, null);
+                unlink(parentKey(old), code);
+                idChanges.put(old.getId(), null);
+                searchIndex.remove(old.getId());
+            }
+
+            /**
+             * 生成应用修改后的快照，子部门表未变化时沿用先序遍历区间索引
+             */
+            Snapshot apply() {
+                return new Snapshot(nodes.apply(nodeChanges), children.apply(childChanges),
+                        codesById.apply(idChanges), searchIndex, objectMapper, childChanges.isEmpty() ? tour : null);
+            }
+
+            private Department node(String code) {
+                return nodeChanges.containsKey(code) ? nodeChanges.get(code) : nodes.get(code);
+            }
+
+            private List<String> childCodes(String parentCode) {
+                List<String> codes = childChanges.containsKey(parentCode)
+                        ? childChanges.get(parentCode) : children.get(parentCode);
+                return codes == null ? List.of() : codes;
+            }
+
+            /**
+             * 按ID顺序插入父部门的子部门列表，与全量加载的顺序一致
+             */
+            private void link(String parentCode, Department dept) {
+                List<String> siblings = new ArrayList<>(childCodes(parentCode));
+                int index = 0;
+                while (index < siblings.size() && node(siblings.get(index)).getId() < dept.getId()) {
+                    index++;
+                }
+                siblings.add(index, dept.getCode());
+                childChanges.put(parentCode, List.copyOf(siblings));
+            }
+
+            private void unlink(String parentCode, String code) {
+                List<String> siblings = new ArrayList<>(childCodes(parentCode));
+                siblings.remove(code);
+                childChanges.put(parentCode, siblings.isEmpty() ? null : List.copyOf(siblings));
+            }
+        }
+    }
+
+    private record Rendered(byte[] json, String etag) {
+    }
+
+    /**
+     * 先序遍历区间索引
+     *
+     * @param tour 部门树先序遍历的部门编号序列，每个部门的子树对应其中连续区间
+     * @param tourIndex 部门编号 -> 在 tour 中的位置
+     * @param subtreeEnd tour 中每个位置对应子树区间的结束位置（不含）
+     */
+    private record Tour(String[] tour, Map<String, Integer> tourIndex, int[] subtreeEnd) {
+    }
+
+    /**
+     * 不可变映射：基础表在新旧版本间共享，每次修改只复制增量表；
+     * 增量表超过基础表大小的平方根时合并为新的基础表，单次修改的均摊代价为 O(√N)
+     */
+    static final class OverlayMap<K, V> {
+
+        private static final Object REMOVED = new Object();
+
+        private static final int MIN_OVERLAY_SIZE = 16;
+
+        private final Map<K, V> base;
+
+        /**
+         * 相对基础表的修改，值为 REMOVED 表示删除
+         */
+        private final Map<K, Object> overlay;
+
+        private final int size;
+
+        OverlayMap(Map<K, V> base) {
+            this(base, Collections.emptyMap(), base.size());
+        }
+
+        private OverlayMap(Map<K, V> base, Map<K, Object> overlay, int size) {
+            this.base = base;
+            this.overlay = overlay;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(K key) {
+            Object value = overlay.get(key);
+            if (value == REMOVED) {
+                return null;
+            }
+            return value != null ? (V) value : base.get(key);
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * 应用修改，返回新的映射
+         *
+         * @param changes 键 -> 新值，值为 null 表示删除
+         */
+        @SuppressWarnings("unchecked")
+        OverlayMap<K, V> apply(Map<K, ? extends V> changes) {
+            if (changes.isEmpty()) {
+                return this;
+            }
+            Map<K, Object> merged = new HashMap<>(overlay);
+            int newSize = size;
+            for (Map.Entry<K, ? extends V> change : changes.entrySet()) {
+                K key = change.getKey();
+                boolean existed = get(key) != null;
+                if (change.getValue() == null) {
+                    if (base.containsKey(key)) {
+                        merged.put(key, REMOVED);
+                    } else {
+                        merged.remove(key);
+                    }
+                    newSize -= existed ? 1 : 0;
+                } else {
+                    merged.put(key, change.getValue());
+                    newSize += existed ? 0 : 1;
+                }
+            }
+            if (merged.size() <= Math.max(MIN_OVERLAY_SIZE, (int) Math.sqrt(base.size()))) {
+                return new OverlayMap<>(base, merged, newSize);
+            }
+            Map<K, V> compacted = new HashMap<>(base);
+            merged.forEach((key, value) -> {
+                if (value == REMOVED) {
+                    compacted.remove(key);
+                } else {
+                    compacted.put(key, (V) value);
+                }
+            });
+            return new OverlayMap<>(compacted, Collections.emptyMap(), newSize);
+        }
+    }
+}
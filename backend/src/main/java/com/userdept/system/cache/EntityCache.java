@@ -0,0 +1,453 @@
+package com.userdept.system.cache;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.userdept.system.utils.TransactionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 两级实体缓存（本地 LRU + Redis 哈希）
+ * <p>
+ * 按主键与业务唯一键（用户名、部门编号）缓存实体。读取顺序为 本地 -> Redis -> 数据库，
+ * 未命中时回源并同时写入两级缓存。Redis 中每个实体存为一个哈希（字段名 -> 字段值 JSON），
+ * 业务唯一键另存一个指向主键的字符串，两者带相同的过期时间。
+ * <p>
+ * 实体变更后调用 {@link #invalidate}：立即清除本地缓存，事务提交后删除 Redis 中的数据，
+ * 并通过 {@link CacheInvalidationBus} 通知其他节点清除本地缓存。
+ * 回源期间若发生失效，则放弃写入缓存，避免把旧数据放回缓存：本地以 {@link #generation} 判断；
+ * Redis 中每个缓存另有一个版本号，失效时先自增再删除数据，回源前读取版本号，
+ * 写入时由脚本比较版本号，其他节点在此期间的失效会使写入被放弃。
+ * 缓存的字段由 objectMapper 决定（可通过注解排除敏感字段），回源得到的实体也按此裁剪后返回。
+ * Redis 不可用时退化为直接查询数据库。返回的实体均为副本，调用方可以修改。
+ */
+@Slf4j
+public class EntityCache<T> {
+
+    private static final String KEY_PREFIX = "cache:";
+
+    private static final String LOCAL_ID_PREFIX = "id:";
+
+    private static final String LOCAL_KEY_PREFIX = "key:";
+
+    /**
+     * 版本号未变化时写入实体哈希与唯一键索引
+     * <p>
+     * KEYS: 版本号、实体哈希、唯一键索引（可选）；ARGV: 回源前的版本号、过期时间、主键、字段名与字段值...
+     */
+    private static final RedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[1]) or '0') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('DEL', KEYS[2])
+            redis.call('HSET', KEYS[2], unpack(ARGV, 4))
+            redis.call('EXPIRE', KEYS[2], ARGV[2])
+            if KEYS[3] then
+                redis.call('SET', KEYS[3], ARGV[3], 'EX', ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    private final String name;
+
+    private final Class<T> type;
+
+    private final Function<T, Long> idGetter;
+
+    private final Function<T, String> keyGetter;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private final LRUCache<String, T> local;
+
+    private final long redisTtlSeconds;
+
+    private final boolean enabled;
+
+    /**
+     * 每次失效加一，回源前后不一致时放弃写入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final List<Consumer<String>> remoteEvictionListeners = new CopyOnWriteArrayList<>();
+
+    private final Counter localHits;
+
+    private final Counter redisHits;
+
+    private final Counter misses;
+
+    private final Counter skippedPuts;
+
+    private final Counter redisErrors;
+
+    public EntityCache(String name, Class<T> type, Function<T, Long> idGetter, Function<T, String> keyGetter,
+                       EntityCacheProperties properties, StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                       CacheInvalidationBus invalidationBus, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.type = type;
+        this.idGetter = idGetter;
+        this.keyGetter = keyGetter;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.invalidationBus = invalidationBus;
+        this.local = CacheUtil.newLRUCache(properties.localCapacity(), properties.localTtlSeconds() * 1000);
+        this.redisTtlSeconds = properties.redisTtlSeconds();
+        this.enabled = properties.enabled();
+
+        localHits = requestCounter(meterRegistry, "local_hit");
+        redisHits = requestCounter(meterRegistry, "redis_hit");
+        misses = requestCounter(meterRegistry, "miss");
+        skippedPuts = Counter.builder("entity.cache.put.skipped")
+                .description("回源期间发生失效而放弃写入缓存的次数")
+                .tag("cache", name)
+                .register(meterRegistry);
+        redisErrors = Counter.builder("entity.cache.redis.errors")
+                .description("访问 Redis 缓存失败的次数")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("entity.cache.local.size", local, LRUCache::size)
+                .description("本地缓存当前条目数")
+                .tag("cache", name)
+                .register(meterRegistry);
+
+        invalidationBus.register(name, this::evictRemote);
+    }
+
+    private Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("entity.cache.requests")
+                .description("实体缓存读取次数，按命中层级区分")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按主键读取
+     *
+     * @param id 主键
+     * @param loader 未命中时的回源查询
+     * @return 实体副本，不存在时返回 null
+     */
+    public T getById(Long id, Function<Long, T> loader) {
+        if (!enabled || id == null) {
+            return loader.apply(id);
+        }
+        T cached = local.get(LOCAL_ID_PREFIX + id);
+        if (cached != null) {
+            localHits.increment();
+            return copyOf(cached);
+        }
+        long loadGeneration = generation.get();
+        T entity = readRedis(id);
+        if (entity != null) {
+            redisHits.increment();
+            putLocal(entity, loadGeneration);
+            return copyOf(entity);
+        }
+        misses.increment();
+        String redisVersion = readVersion();
+        return load(loader.apply(id), loadGeneration, redisVersion);
+    }
+
+    /**
+     * 按业务唯一键读取
+     *
+     * @param key 业务唯一键
+     * @param loader 未命中时的回源查询
+     * @return 实体副本，不存在时返回 null
+     */
+    public T getByKey(String key, Function<String, T> loader) {
+        if (!enabled || !StringUtils.hasText(key)) {
+            return loader.apply(key);
+        }
+        T cached = local.get(LOCAL_KEY_PREFIX + key);
+        if (cached != null) {
+            localHits.increment();
+            return copyOf(cached);
+        }
+        long loadGeneration = generation.get();
+        T entity = null;
+        try {
+            String id = redisTemplate.opsForValue().get(keyIndexKey(key));
+            entity = id == null ? null : readRedis(Long.valueOf(id));
+        } catch (RuntimeException e) {
+            onRedisError("读取", e);
+        }
+        // 唯一键被改名后索引可能指向其他实体，需校验
+        if (entity != null && key.equals(keyGetter.apply(entity))) {
+            redisHits.increment();
+            putLocal(entity, loadGeneration);
+            return copyOf(entity);
+        }
+        misses.increment();
+        String redisVersion = readVersion();
+        return load(loader.apply(key), loadGeneration, redisVersion);
+    }
+
+    /**
+     * 失效实体缓存，并通知其他节点
+     *
+     * @param id 主键，可为空
+     * @param keys 业务唯一键（变更前后的值都需要传入）
+     */
+    public void invalidate(Long id, String... keys) {
+        if (!enabled) {
+            return;
+        }
+        List<String> keyList = Arrays.stream(keys).filter(StringUtils::hasText).distinct().toList();
+        evictLocal(id, keyList);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionUtil.afterCommit(() -> {
+                evictLocal(id, keyList);
+                evictRedis(id, keyList);
+                invalidationBus.publish(name, id, keyList);
+            });
+        } else {
+            evictRedis(id, keyList);
+            invalidationBus.publish(name, id, keyList);
+        }
+    }
+
+    /**
+     * 只知道业务唯一键时失效实体缓存，主键从缓存中查找
+     *
+     * @param key 业务唯一键
+     */
+    public void invalidateByKey(String key) {
+        if (!enabled || !StringUtils.hasText(key)) {
+            return;
+        }
+        Long id = null;
+        T cached = local.get(LOCAL_KEY_PREFIX + key);
+        if (cached != null) {
+            id = idGetter.apply(cached);
+        } else {
+            try {
+                String value = redisTemplate.opsForValue().get(keyIndexKey(key));
+                id = value == null ? null : Long.valueOf(value);
+            } catch (RuntimeException e) {
+                onRedisError("读取", e);
+            }
+        }
+        invalidate(id, key);
+    }
+
+    /**
+     * 注册其他节点失效通知的监听器，参数为被失效的业务唯一键
+     */
+    public void onRemoteEviction(Consumer<String> listener) {
+        remoteEvictionListeners.add(listener);
+    }
+
+    /**
+     * 处理其他节点发来的失效通知
+     */
+    private void evictRemote(Long id, Collection<String> keys) {
+        evictLocal(id, keys);
+        for (String key : keys) {
+            for (Consumer<String> listener : remoteEvictionListeners) {
+                listener.accept(key);
+            }
+        }
+    }
+
+    private void evictLocal(Long id, Collection<String> keys) {
+        generation.incrementAndGet();
+        if (id != null) {
+            T cached = local.get(LOCAL_ID_PREFIX + id, false);
+            local.remove(LOCAL_ID_PREFIX + id);
+            // 本地缓存中的唯一键可能已与传入的不同（例如其他节点改名）
+            if (cached != null) {
+                local.remove(LOCAL_KEY_PREFIX + keyGetter.apply(cached));
+            }
+        }
+        for (String key : keys) {
+            local.remove(LOCAL_KEY_PREFIX + key);
+        }
+    }
+
+    private void evictRedis(Long id, Collection<String> keys) {
+        List<String> redisKeys = new ArrayList<>(keys.size() + 1);
+        if (id != null) {
+            redisKeys.add(entityKey(id));
+        }
+        for (String key : keys) {
+            redisKeys.add(keyIndexKey(key));
+        }
+        try {
+            // 先自增版本号再删除，删除之后旧版本号的回源不会再写入成功
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                conn.incr(versionKey());
+                conn.del(redisKeys.toArray(String[]::new));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            onRedisError("删除", e);
+        }
+    }
+
+    /**
+     * 回源结果写入两级缓存
+     *
+     * @param redisVersion 回源前读取的 Redis 版本号，null 表示 Redis 不可用，不写入 Redis
+     * @return 按 objectMapper 裁剪后的实体
+     */
+    private T load(T entity, long loadGeneration, String redisVersion) {
+        if (entity == null) {
+            return null;
+        }
+        ObjectNode node = objectMapper.valueToTree(entity);
+        T cacheable = objectMapper.convertValue(node, type);
+        if (generation.get() != loadGeneration) {
+            skippedPuts.increment();
+            return cacheable;
+        }
+        if (redisVersion != null) {
+            writeRedis(cacheable, node, redisVersion);
+        }
+        putLocal(cacheable, loadGeneration);
+        return cacheable;
+    }
+
+    private void putLocal(T entity, long loadGeneration) {
+        if (generation.get() != loadGeneration) {
+            skippedPuts.increment();
+            return;
+        }
+        T copy = copyOf(entity);
+        local.put(LOCAL_ID_PREFIX + idGetter.apply(copy), copy);
+        String key = keyGetter.apply(copy);
+        if (key != null) {
+            local.put(LOCAL_KEY_PREFIX + key, copy);
+        }
+    }
+
+    private T readRedis(Long id) {
+        try {
+            Map<Object, Object> fields = redisTemplate.opsForHash().entries(entityKey(id));
+            if (fields.isEmpty()) {
+                return null;
+            }
+            ObjectNode node = objectMapper.createObjectNode();
+            for (Map.Entry<Object, Object> field : fields.entrySet()) {
+                node.set((String) field.getKey(), objectMapper.readTree((String) field.getValue()));
+            }
+            return objectMapper.treeToValue(node, type);
+        } catch (JsonProcessingException e) {
+            log.warn("实体缓存[{}]数据无法解析，已忽略: id={}", name, id);
+            return null;
+        } catch (RuntimeException e) {
+            onRedisError("读取", e);
+            return null;
+        }
+    }
+
+    /**
+     * 读取 Redis 版本号，Redis 不可用时返回 null
+     */
+    private String readVersion() {
+        try {
+            String version = redisTemplate.opsForValue().get(versionKey());
+            return version == null ? "0" : version;
+        } catch (RuntimeException e) {
+            onRedisError("读取", e);
+            return null;
+        }
+    }
+
+    private void writeRedis(T entity, ObjectNode node, String redisVersion) {
+        Long id = idGetter.apply(entity);
+        String key = keyGetter.apply(entity);
+        List<String> keys = new ArrayList<>(3);
+        keys.add(versionKey());
+        keys.add(entityKey(id));
+        if (key != null) {
+            keys.add(keyIndexKey(key));
+        }
+        List<String> args = new ArrayList<>();
+        args.add(redisVersion);
+        args.add(String.valueOf(redisTtlSeconds));
+        args.add(String.valueOf(id));
+        for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (!field.getValue().isNull()) {
+                args.add(field.getKey());
+                args.add(field.getValue().toString());
+            }
+        }
+        try {
+            Long written = redisTemplate.execute(PUT_SCRIPT, keys, args.toArray());
+            if (written == null || written == 0) {
+                skippedPuts.increment();
+            }
+        } catch (RuntimeException e) {
+            onRedisError("写入", e);
+        }
+    }
+
+    private void onRedisError(String operation, RuntimeException e) {
+        redisErrors.increment();
+        log.warn("实体缓存[{}]{} Redis 失败，直接查询数据库: {}", name, operation, e.getMessage());
+    }
+
+    private T copyOf(T entity) {
+        T copy = BeanUtils.instantiateClass(type);
+        BeanUtils.copyProperties(entity, copy);
+        return copy;
+    }
+
+    private String versionKey() {
+        return KEY_PREFIX + name + ":version";
+    }
+
+    private String entityKey(Long id) {
+        return KEY_PREFIX + name + ":id:" + id;
+    }
+
+    private String keyIndexKey(String key) {
+        return KEY_PREFIX + name + ":key:" + key;
+    }
+
+    /**
+     * 缓存配置
+     *
+     * @param enabled 是否启用，关闭时直接查询数据库
+     * @param localCapacity 本地缓存容量
+     * @param localTtlSeconds 本地缓存过期时间（秒）
+     * @param redisTtlSeconds Redis 缓存过期时间（秒）
+     */
+    public record EntityCacheProperties(boolean enabled, int localCapacity, long localTtlSeconds,
+                                        long redisTtlSeconds) {
+    }
+}
@@ -0,0 +1,600 @@
+package com.userdept.system.cache;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.userdept.system.entity.UserDepartment;
+import com.userdept.system.mapper.UserDepartmentMapper;
+import com.userdept.system.utils.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 用户与部门成员关系的内存双向索引
+ * <p>
+ * 用户名与部门编号各自映射为从 0 开始的整数序号，关系以有序 int 数组保存：
+ * 用户序号 -> 部门序号数组，部门序号 -> 用户序号数组（并行保存加入时间，精确到秒）。
+ * 启动完成后从 user_department 全量加载，之后由用户、部门服务的写操作在事务提交后增量维护，
+ * 并通过 {@link CacheInvalidationBus} 通知其他节点按用户重新加载或删除部门。
+ * 加载完成前 {@link #isReady()} 返回 false，调用方应回退到数据库查询。
+ * <p>
+ * 删除的用户名、部门编号暂时保留序号，没有关系的序号多于有关系的序号时重新编号回收。
+ * 读多写少，使用读写锁保证线程安全；每次修改递增代次，按用户重新加载时据此发现查询期间的修改。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MembershipIndex {
+
+    private static final String USER_CHANNEL = "membership.user";
+
+    private static final String DEPARTMENT_CHANNEL = "membership.department";
+
+    private static final int[] EMPTY_INTS = new int[0];
+
+    private static final long[] EMPTY_LONGS = new long[0];
+
+    /**
+     * 按用户重新加载时，查询期间索引被修改的重试次数，超过后在写锁内查询
+     */
+    private static final int RELOAD_ATTEMPTS = 3;
+
+    /**
+     * 没有关系的序号超过该数量且多于有关系的序号时重新编号
+     */
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    private final UserDepartmentMapper userDepartmentMapper;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Interner users = new Interner();
+
+    private final Interner departments = new Interner();
+
+    /**
+     * 用户序号 -> 部门序号（递增）
+     */
+    private int[][] userDepartments = new int[16][];
+
+    /**
+     * 部门序号 -> 用户序号（递增）
+     */
+    private int[][] departmentUsers = new int[16][];
+
+    /**
+     * 部门序号 -> 与 departmentUsers 对应的加入时间（UTC 秒）
+     */
+    private long[][] departmentAddedAt = new long[16][];
+
+    /**
+     * 有部门的用户数、有成员的部门数
+     */
+    private int liveUsers;
+
+    private int liveDepartments;
+
+    /**
+     * 修改代次，在写锁内递增
+     */
+    private long generation;
+
+    private volatile boolean ready;
+
+    /**
+     * 订阅其他节点的变更通知
+     */
+    @PostConstruct
+    public void init() {
+        invalidationBus.register(USER_CHANNEL, (id, usernames) -> reloadUsers(usernames));
+        invalidationBus.register(DEPARTMENT_CHANNEL, (id, codes) -> codes.forEach(this::applyRemoveDepartment));
+    }
+
+    /**
+     * 启动完成后全量加载（在管理员账户初始化之后）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        // 加载期间持有写锁，事务提交后的增量维护会等待加载完成，不会丢失
+        lock.writeLock().lock();
+        try {
+            generation++;
+            users.clear();
+            departments.clear();
+            userDepartments = new int[16][];
+            departmentUsers = new int[16][];
+            departmentAddedAt = new long[16][];
+            liveUsers = 0;
+            liveDepartments = 0;
+            List<UserDepartment> relations = userDepartmentMapper.selectList(Wrappers.<UserDepartment>lambdaQuery()
+                    .select(UserDepartment::getUsername, UserDepartment::getDepartmentCode,
+                            UserDepartment::getCreatedTime)
+                    .orderByAsc(UserDepartment::getId));
+            for (UserDepartment relation : relations) {
+                addWithoutLock(relation.getUsername(), relation.getDepartmentCode(), relation.getCreatedTime());
+            }
+            ready = true;
+            log.info("成员关系索引加载完成，关系数: {}，用户数: {}，部门数: {}，耗时: {}ms", relations.size(),
+                    users.size(), departments.size(), System.currentTimeMillis() - start);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 用户所属的部门编号
+     */
+    public List<String> getDepartmentCodes(String username) {
+        lock.readLock().lock();
+        try {
+            return departments.names(userDepartmentsOf(users.find(username)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 批量查询用户所属的部门编号
+     *
+     * @return 用户名 -> 部门编号列表，没有部门的用户不在结果中
+     */
+    public Map<String, List<String>> getDepartmentCodes(Collection<String> usernames) {
+        Map<String, List<String>> result = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String username : usernames) {
+                int[] codes = userDepartmentsOf(users.find(username));
+                if (codes.length > 0) {
+                    result.put(username, departments.names(codes));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 部门下的用户名
+     */
+    public List<String> getUsernames(String departmentCode) {
+        lock.readLock().lock();
+        try {
+            int department = departments.find(departmentCode);
+            return users.names(department < 0 || department >= departmentUsers.length
+                    || departmentUsers[department] == null ? EMPTY_INTS : departmentUsers[department]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 部门下的成员（用户名与加入时间），按加入时间排序
+     */
+    public List<Member> getMembers(String departmentCode) {
+        List<Member> members = getMembers(List.of(departmentCode));
+        members.sort((a, b) -> a.addedTime().compareTo(b.addedTime()));
+        return members;
+    }
+
+    /**
+     * 多个部门下的成员，按部门顺序输出
+     */
+    public List<Member> getMembers(Collection<String> departmentCodes) {
+        List<Member> members = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String departmentCode : departmentCodes) {
+                int department = departments.find(departmentCode);
+                if (department < 0 || department >= departmentUsers.length || departmentUsers[department] == null) {
+                    continue;
+                }
+                int[] userOrdinals = departmentUsers[department];
+                long[] addedAt = departmentAddedAt[department];
+                for (int i = 0; i < userOrdinals.length; i++) {
+                    members.add(new Member(users.name(userOrdinals[i]), departmentCode,
+                            LocalDateTime.ofEpochSecond(addedAt[i], 0, ZoneOffset.UTC)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return members;
+    }
+
+    /**
+     * 新增关系（事务提交后生效）
+     */
+    public void add(String username, String departmentCode, LocalDateTime addedTime) {
+        TransactionUtil.afterCommit(() -> {
+            write(() -> addWithoutLock(username, departmentCode, addedTime));
+            invalidationBus.publish(USER_CHANNEL, null, List.of(username));
+        });
+    }
+
+    /**
+     * 批量新增关系（事务提交后生效）
+     */
+    public void addAll(List<UserDepartment> relations) {
+        List<UserDepartment> copy = List.copyOf(relations);
+        TransactionUtil.afterCommit(() -> {
+            write(() -> copy.forEach(r -> addWithoutLock(r.getUsername(), r.getDepartmentCode(), r.getCreatedTime())));
+            invalidationBus.publish(USER_CHANNEL, null,
+                    copy.stream().map(UserDepartment::getUsername).distinct().toList());
+        });
+    }
+
+    /**
+     * 删除关系（事务提交后生效）
+     */
+    public void remove(String username, String departmentCode) {
+        TransactionUtil.afterCommit(() -> {
+            write(() -> removeWithoutLock(users.find(username), departments.find(departmentCode)));
+            invalidationBus.publish(USER_CHANNEL, null, List.of(username));
+        });
+    }
+
+    /**
+     * 用新的部门替换用户的全部关系（事务提交后生效）
+     *
+     * @param departmentCode 新部门编号，为空时只删除
+     */
+    public void replaceUser(String username, String departmentCode, LocalDateTime addedTime) {
+        TransactionUtil.afterCommit(() -> {
+            write(() -> {
+                removeUserWithoutLock(username);
+                if (departmentCode != null && !departmentCode.isEmpty()) {
+                    addWithoutLock(username, departmentCode, addedTime);
+                }
+            });
+            invalidationBus.publish(USER_CHANNEL, null, List.of(username));
+        });
+    }
+
+    /**
+     * 删除用户的全部关系（事务提交后生效）
+     */
+    public void removeUser(String username) {
+        replaceUser(username, null, null);
+    }
+
+    /**
+     * 删除部门的全部关系（事务提交后生效）
+     */
+    public void removeDepartment(String departmentCode) {
+        removeDepartments(List.of(departmentCode));
+    }
+
+    /**
+     * 删除多个部门的全部关系（事务提交后生效，只发送一条通知）
+     */
+    public void removeDepartments(Collection<String> departmentCodes) {
+        List<String> codes = List.copyOf(departmentCodes);
+        TransactionUtil.afterCommit(() -> {
+            codes.forEach(this::applyRemoveDepartment);
+            invalidationBus.publish(DEPARTMENT_CHANNEL, null, codes);
+        });
+    }
+
+    /**
+     * 其他节点修改了这些用户的关系，从数据库重新加载
+     * <p>
+     * 查询在锁外执行，只有查询期间索引未被修改时才替换：否则查询结果可能早于期间提交的本节点写操作，
+     * 替换会丢失这些写操作，此时重新查询。多次重试仍被修改时在写锁内查询。
+     */
+    private void reloadUsers(List<String> usernames) {
+        if (!ready || usernames.isEmpty()) {
+            return;
+        }
+        for (int attempt = 0; attempt < RELOAD_ATTEMPTS; attempt++) {
+            long loadGeneration = generation();
+            List<UserDepartment> relations = selectRelations(usernames);
+            lock.writeLock().lock();
+            try {
+                if (generation == loadGeneration) {
+                    generation++;
+                    replaceUsersWithoutLock(usernames, relations);
+                    compactIfSparseWithoutLock();
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("重新加载用户关系期间索引被修改，重新查询: {}", usernames);
+        }
+        write(() -> replaceUsersWithoutLock(usernames, selectRelations(usernames)));
+    }
+
+    private List<UserDepartment> selectRelations(List<String> usernames) {
+        return userDepartmentMapper.selectList(Wrappers.<UserDepartment>lambdaQuery()
+                .select(UserDepartment::getUsername, UserDepartment::getDepartmentCode, UserDepartment::getCreatedTime)
+                .in(UserDepartment::getUsername, usernames)
+                .orderByAsc(UserDepartment::getId));
+    }
+
+    private void replaceUsersWithoutLock(List<String> usernames, List<UserDepartment> relations) {
+        usernames.forEach(this::removeUserWithoutLock);
+        relations.forEach(r -> addWithoutLock(r.getUsername(), r.getDepartmentCode(), r.getCreatedTime()));
+    }
+
+    private long generation() {
+        lock.readLock().lock();
+        try {
+            return generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已分配的用户序号数与部门序号数
+     */
+    int[] ordinalCounts() {
+        lock.readLock().lock();
+        try {
+            return new int[]{users.size(), departments.size()};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void applyRemoveDepartment(String departmentCode) {
+        write(() -> {
+            int department = departments.find(departmentCode);
+            if (department < 0 || department >= departmentUsers.length || departmentUsers[department] == null) {
+                return;
+            }
+            for (int user : departmentUsers[department].clone()) {
+                removeWithoutLock(user, department);
+            }
+        });
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            action.run();
+            compactIfSparseWithoutLock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int[] userDepartmentsOf(int user) {
+        return user < 0 || user >= userDepartments.length || userDepartments[user] == null
+                ? EMPTY_INTS : userDepartments[user];
+    }
+
+    private void addWithoutLock(String username, String departmentCode, LocalDateTime addedTime) {
+        int user = users.intern(username);
+        int department = departments.intern(departmentCode);
+        if (user >= userDepartments.length) {
+            userDepartments = Arrays.copyOf(userDepartments, Math.max(user + 1, userDepartments.length * 2));
+        }
+        if (department >= departmentUsers.length) {
+            int capacity = Math.max(department + 1, departmentUsers.length * 2);
+            departmentUsers = Arrays.copyOf(departmentUsers, capacity);
+            departmentAddedAt = Arrays.copyOf(departmentAddedAt, capacity);
+        }
+
+        int[] depts = userDepartments[user] == null ? EMPTY_INTS : userDepartments[user];
+        int pos = Arrays.binarySearch(depts, department);
+        if (pos >= 0) {
+            return;
+        }
+        if (depts.length == 0) {
+            liveUsers++;
+        }
+        userDepartments[user] = insert(depts, -pos - 1, department);
+
+        int[] members = departmentUsers[department] == null ? EMPTY_INTS : departmentUsers[department];
+        if (members.length == 0) {
+            liveDepartments++;
+        }
+        long[] addedAt = departmentAddedAt[department] == null ? EMPTY_LONGS : departmentAddedAt[department];
+        int memberPos = -Arrays.binarySearch(members, user) - 1;
+        departmentUsers[department] = insert(members, memberPos, user);
+        long seconds = (addedTime == null ? LocalDateTime.now() : addedTime).toEpochSecond(ZoneOffset.UTC);
+        departmentAddedAt[department] = insert(addedAt, memberPos, seconds);
+    }
+
+    private void removeUserWithoutLock(String username) {
+        int user = users.find(username);
+        for (int department : userDepartmentsOf(user).clone()) {
+            removeWithoutLock(user, department);
+        }
+    }
+
+    private void removeWithoutLock(int user, int department) {
+        int[] depts = userDepartmentsOf(user);
+        int pos = Arrays.binarySearch(depts, department);
+        if (pos < 0) {
+            return;
+        }
+        userDepartments[user] = delete(depts, pos);
+        if (depts.length == 1) {
+            liveUsers--;
+        }
+        int memberPos = Arrays.binarySearch(departmentUsers[department], user);
+        departmentUsers[department] = delete(departmentUsers[department], memberPos);
+        departmentAddedAt[department] = delete(departmentAddedAt[department], memberPos);
+        if (departmentUsers[department].length == 0) {
+            liveDepartments--;
+        }
+    }
+
+    /**
+     * 没有关系的序号过多时重新编号：有关系的用户名、部门编号按原序号顺序取新序号，
+     * 各数组中的序号相对顺序不变，映射后仍然有序
+     */
+    private void compactIfSparseWithoutLock() {
+        int deadUsers = users.size() - liveUsers;
+        int deadDepartments = departments.size() - liveDepartments;
+        if (!isSparse(deadUsers, liveUsers) && !isSparse(deadDepartments, liveDepartments)) {
+            return;
+        }
+        long start = System.nanoTime();
+        Interner compactUsers = new Interner();
+        int[] userMapping = new int[users.size()];
+        for (int user = 0; user < userMapping.length; user++) {
+            userMapping[user] = userDepartmentsOf(user).length > 0 ? compactUsers.intern(users.name(user)) : -1;
+        }
+        Interner compactDepartments = new Interner();
+        int[] departmentMapping = new int[departments.size()];
+        for (int department = 0; department < departmentMapping.length; department++) {
+            boolean live = department < departmentUsers.length && departmentUsers[department] != null
+                    && departmentUsers[department].length > 0;
+            departmentMapping[department] = live ? compactDepartments.intern(departments.name(department)) : -1;
+        }
+
+        int[][] compactUserDepartments = new int[Math.max(16, compactUsers.size())][];
+        for (int user = 0; user < userMapping.length; user++) {
+            if (userMapping[user] >= 0) {
+                compactUserDepartments[userMapping[user]] = map(userDepartments[user], departmentMapping);
+            }
+        }
+        int capacity = Math.max(16, compactDepartments.size());
+        int[][] compactDepartmentUsers = new int[capacity][];
+        long[][] compactDepartmentAddedAt = new long[capacity][];
+        for (int department = 0; department < departmentMapping.length; department++) {
+            if (departmentMapping[department] >= 0) {
+                compactDepartmentUsers[departmentMapping[department]] = map(departmentUsers[department], userMapping);
+                compactDepartmentAddedAt[departmentMapping[department]] = departmentAddedAt[department];
+            }
+        }
+
+        log.info("成员关系索引重新编号，用户序号: {} -> {}，部门序号: {} -> {}，耗时: {}ms", users.size(),
+                compactUsers.size(), departments.size(), compactDepartments.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        users.replaceWith(compactUsers);
+        departments.replaceWith(compactDepartments);
+        userDepartments = compactUserDepartments;
+        departmentUsers = compactDepartmentUsers;
+        departmentAddedAt = compactDepartmentAddedAt;
+    }
+
+    private static boolean isSparse(int dead, int live) {
+        return dead > COMPACT_THRESHOLD && dead > live;
+    }
+
+    private static int[] map(int[] ordinals, int[] mapping) {
+        int[] result = new int[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            result[i] = mapping[ordinals[i]];
+        }
+        return result;
+    }
+
+    private static int[] insert(int[] array, int pos, int value) {
+        int[] result = new int[array.length + 1];
+        System.arraycopy(array, 0, result, 0, pos);
+        result[pos] = value;
+        System.arraycopy(array, pos, result, pos + 1, array.length - pos);
+        return result;
+    }
+
+    private static long[] insert(long[] array, int pos, long value) {
+        long[] result = new long[array.length + 1];
+        System.arraycopy(array, 0, result, 0, pos);
+        result[pos] = value;
+        System.arraycopy(array, pos, result, pos + 1, array.length - pos);
+        return result;
+    }
+
+    private static int[] delete(int[] array, int pos) {
+        int[] result = new int[array.length - 1];
+        System.arraycopy(array, 0, result, 0, pos);
+        System.arraycopy(array, pos + 1, result, pos, array.length - pos - 1);
+        return result;
+    }
+
+    private static long[] delete(long[] array, int pos) {
+        long[] result = new long[array.length - 1];
+        System.arraycopy(array, 0, result, 0, pos);
+        System.arraycopy(array, pos + 1, result, pos, array.length - pos - 1);
+        return result;
+    }
+
+    /**
+     * 部门成员
+     */
+    public record Member(String username, String departmentCode, LocalDateTime addedTime) {
+    }
+
+    /**
+     * 字符串 -> 序号
+     */
+    private static final class Interner {
+
+        private final Map<String, Integer> ordinals = new HashMap<>();
+
+        private String[] names = new String[16];
+
+        int find(String name) {
+            Integer ordinal = name == null ? null : ordinals.get(name);
+            return ordinal == null ? -1 : ordinal;
+        }
+
+        int intern(String name) {
+            Integer ordinal = ordinals.get(name);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            int next = ordinals.size();
+            if (next == names.length) {
+                names = Arrays.copyOf(names, next * 2);
+            }
+            names[next] = name;
+            ordinals.put(name, next);
+            return next;
+        }
+
+        String name(int ordinal) {
+            return names[ordinal];
+        }
+
+        List<String> names(int[] ordinalArray) {
+            List<String> result = new ArrayList<>(ordinalArray.length);
+            for (int ordinal : ordinalArray) {
+                result.add(names[ordinal]);
+            }
+            return result;
+        }
+
+        int size() {
+            return ordinals.size();
+        }
+
+        void clear() {
+            ordinals.clear();
+            names = new String[16];
+        }
+
+        void replaceWith(Interner other) {
+            ordinals.clear();
+            ordinals.putAll(other.ordinals);
+            names = other.names;
+        }
+    }
+}
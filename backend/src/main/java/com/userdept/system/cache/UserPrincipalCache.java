@@ -0,0 +1,198 @@
+package com.userdept.system.cache;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.userdept.system.entity.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.userdept.system.utils.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 已认证用户主体缓存
+ * <p>
+ * JWT 过滤器每次请求都需要加载 UserDetails，这里按用户名做有界（LRU + TTL）缓存，
+ * 避免每个请求都查询一次数据库。用户被修改、禁用或删除时需显式失效，失效通过 {@link CacheInvalidationBus}
+ * 同步到其他节点。缓存的主体不含密码哈希等凭据。
+ * <p>
+ * 每个用户名对应一个代次（按哈希分段），失效时在锁内递增并删除条目；回源前读取代次，写入时代次已变化则放弃写入，
+ * 避免在失效前读到旧数据的并发请求在失效后把旧数据放回缓存。
+ */
+@Slf4j
+@Component
+public class UserPrincipalCache {
+
+    private static final String METRIC_PREFIX = "auth.principal.cache";
+
+    private static final String CHANNEL = "auth.principal";
+
+    /**
+     * 代次分段数，不同用户名落在同一分段时只会多放弃几次写入
+     */
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final LRUCache<String, UserDetails> cache;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * 保证“比较代次并写入”与“递增代次并删除”互斥
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final LongAdder invalidationCount = new LongAdder();
+
+    private final LongAdder skippedPutCount = new LongAdder();
+
+    /**
+     * 标记当前线程正在执行显式失效，用于区分监听器中的淘汰与失效
+     */
+    private final ThreadLocal<Boolean> invalidating = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    public UserPrincipalCache(@Value("${jwt.principal-cache.capacity:1000}") int capacity,
+                              @Value("${jwt.principal-cache.ttl:60}") long ttlSeconds,
+                              CacheInvalidationBus invalidationBus,
+                              MeterRegistry meterRegistry) {
+        this.invalidationBus = invalidationBus;
+        this.cache = CacheUtil.newLRUCache(capacity, ttlSeconds * 1000);
+        this.cache.setListener((key, value) -> {
+            if (!invalidating.get()) {
+                evictionCount.increment();
+            }
+        });
+
+        FunctionCounter.builder(METRIC_PREFIX + ".hits", cache, LRUCache::getHitCount)
+                .description("用户主体缓存命中次数")
+                .register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".misses", cache, LRUCache::getMissCount)
+                .description("用户主体缓存未命中次数")
+                .register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".evictions", evictionCount, LongAdder::sum)
+                .description("用户主体缓存因容量或过期被淘汰的次数")
+                .register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".invalidations", invalidationCount, LongAdder::sum)
+                .description("用户主体缓存被显式失效的次数")
+                .register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".put.skipped", skippedPutCount, LongAdder::sum)
+                .description("回源期间发生失效而放弃写入用户主体缓存的次数")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".size", cache, LRUCache::size)
+                .description("用户主体缓存当前条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅其他节点的失效通知
+     */
+    @PostConstruct
+    public void init() {
+        invalidationBus.register(CHANNEL, (id, usernames) -> usernames.forEach(username -> {
+            invalidationCount.increment();
+            evict(username);
+        }));
+    }
+
+    /**
+     * 获取用户主体，未命中或已过期时回源并写入缓存
+     *
+     * @param username 用户名
+     * @param loader 回源加载
+     * @return 不含凭据的用户主体
+     */
+    public UserDetails get(String username, Function<String, ? extends UserDetails> loader) {
+        UserDetails cached = cache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(username);
+        long loadGeneration = generations.get(stripe);
+        UserDetails principal = withoutCredentials(loader.apply(username));
+        lock.lock();
+        try {
+            if (generations.get(stripe) == loadGeneration) {
+                cache.put(username, principal);
+            } else {
+                skippedPutCount.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return principal;
+    }
+
+    /**
+     * 失效指定用户的缓存，并通知其他节点
+     * <p>
+     * 处于事务中时，除立即失效外还会在提交后再失效一次并发送通知，
+     * 提交前读到旧数据的并发请求因代次变化无法写入缓存。
+     */
+    public void invalidate(String username) {
+        if (!StringUtils.hasText(username)) {
+            return;
+        }
+        invalidationCount.increment();
+        evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionUtil.afterCommit(() -> {
+                evict(username);
+                invalidationBus.publish(CHANNEL, null, List.of(username));
+            });
+        } else {
+            invalidationBus.publish(CHANNEL, null, List.of(username));
+        }
+    }
+
+    private void evict(String username) {
+        lock.lock();
+        invalidating.set(Boolean.TRUE);
+        try {
+            generations.incrementAndGet(stripe(username));
+            cache.remove(username);
+        } finally {
+            invalidating.set(Boolean.FALSE);
+            lock.unlock();
+        }
+        log.debug("用户主体缓存已失效: {}", username);
+    }
+
+    private static int stripe(String username) {
+        return Math.floorMod(username.hashCode(), GENERATION_STRIPES);
+    }
+
+    /**
+     * 复制用户主体，去掉密码哈希、盐与身份证号（与实体缓存保留的字段一致）
+     */
+    private static UserDetails withoutCredentials(UserDetails userDetails) {
+        if (!(userDetails instanceof User user)) {
+            return userDetails;
+        }
+        User principal = new User();
+        principal.setId(user.getId());
+        principal.setUsername(user.getUsername());
+        principal.setRealname(user.getRealname());
+        principal.setMobile(user.getMobile());
+        principal.setSex(user.getSex());
+        principal.setEmail(user.getEmail());
+        principal.setStatus(user.getStatus());
+        principal.setCreatedTime(user.getCreatedTime());
+        principal.setUpdatedTime(user.getUpdatedTime());
+        return principal;
+    }
+}
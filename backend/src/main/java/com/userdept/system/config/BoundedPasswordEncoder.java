@@ -0,0 +1,229 @@
+package com.userdept.system.config;
+
+import com.userdept.system.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界线程池中执行的 BCrypt 密码编码器
+ * <p>
+ * 密码哈希与校验在专用线程池中执行，限制同时进行的 BCrypt 计算数量，避免登录高峰耗尽 CPU 与请求线程。
+ * 等待队列已满、预计等待时间超过超时时间或等待超时时抛出 {@link ServiceBusyException}（HTTP 503），请求线程可立即释放。
+ * 已开始的 BCrypt 计算无法中断，超时的任务不取消，尚未开始的在出队时跳过。
+ * 哈希强度（cost）可配置，低于配置强度的旧哈希会在登录成功后自动升级。
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final String METRIC_PREFIX = "password.hash";
+
+    private final BCryptPasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int threads;
+
+    private final long timeoutMillis;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    private final Counter rejectedCounter;
+
+    /**
+     * 近期单次哈希/校验耗时（纳秒），用于提交时估计排队等待时间
+     */
+    private final AtomicLong averageNanos = new AtomicLong();
+
+    public BoundedPasswordEncoder(int cost, int threads, int queueCapacity, long timeoutMillis,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = new BCryptPasswordEncoder(cost);
+        this.threads = threads;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "password-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder(METRIC_PREFIX + ".duration")
+                .description("密码哈希/校验耗时（不含排队）")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder(METRIC_PREFIX + ".duration")
+                .description("密码哈希/校验耗时（不含排队）")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder(METRIC_PREFIX + ".rejected")
+                .description("因队列已满、预计等待过长或等待超时被拒绝的哈希任务数")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".queue.depth", executor, e -> e.getQueue().size())
+                .description("等待执行的哈希任务数")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行的哈希任务数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeOnCurrentThread(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * 批量哈希（如批量导入），与登录共用线程池
+     * <p>
+     * 同一时间最多占用与线程数相同的执行名额，队列中始终为登录请求留有余量；
+     * 提交不到时等待自己已提交的任务完成后重试，仍不到时抛出 {@link ServiceBusyException}。
+     *
+     * @param rawPasswords 明文密码
+     * @return 与输入顺序一致的哈希值
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        List<String> result = new ArrayList<>(rawPasswords.size());
+        Deque<Future<String>> inFlight = new ArrayDeque<>(threads);
+        try {
+            for (CharSequence rawPassword : rawPasswords) {
+                if (inFlight.size() == threads) {
+                    result.add(inFlight.removeFirst().get());
+                }
+                inFlight.addLast(submitBatchTask(() -> encodeOnCurrentThread(rawPassword), inFlight, result));
+            }
+            while (!inFlight.isEmpty()) {
+                result.add(inFlight.removeFirst().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("密码哈希被中断", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+        return result;
+    }
+
+    private String encodeOnCurrentThread(CharSequence rawPassword) {
+        return encodeTimer.record(() -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * 提交批量任务。队列已满时逐个取回自己已提交任务的结果后重试，没有已提交的任务仍提交不到时拒绝
+     */
+    private Future<String> submitBatchTask(Callable<String> task, Deque<Future<String>> inFlight, List<String> result)
+            throws InterruptedException, ExecutionException {
+        while (true) {
+            try {
+                return executor.submit(measured(task));
+            } catch (RejectedExecutionException e) {
+                if (inFlight.isEmpty()) {
+                    rejectedCounter.increment();
+                    throw new ServiceBusyException("系统繁忙，请稍后重试", e);
+                }
+                result.add(inFlight.removeFirst().get());
+            }
+        }
+    }
+
+    /**
+     * 关闭线程池
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 提交交互式任务（登录、修改密码）
+     * <p>
+     * BCrypt 开始后无法中断，因此不依赖取消：有任务排队时按队列长度与近期耗时估计等待时间，超过超时时间时在提交时直接拒绝；
+     * 调用方等待超时后不取消任务，仍在队列中的任务开始执行时发现已过期即跳过，不再占用线程计算。
+     */
+    private <T> T submit(Callable<T> task) {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        // 队列为空时总是接受，平均耗时在一次异常缓慢（如长时间 GC）后仍能被新的样本拉回
+        int queued = executor.getQueue().size();
+        long expectedWaitNanos = queued == 0 ? 0 : (queued / threads + 1) * averageNanos.get();
+        if (expectedWaitNanos > timeoutNanos) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException("系统繁忙，请稍后重试");
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        Future<T> future;
+        try {
+            future = executor.submit(measured(() -> {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new ServiceBusyException("系统繁忙，请稍后重试");
+                }
+                return task.call();
+            }));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException("系统繁忙，请稍后重试", e);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException("系统繁忙，请稍后重试", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("密码哈希被中断", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * 记录任务执行耗时的移动平均（权重 1/8），过期跳过的任务不计入
+     */
+    private <T> Callable<T> measured(Callable<T> task) {
+        return () -> {
+            long start = System.nanoTime();
+            T value = task.call();
+            long elapsed = System.nanoTime() - start;
+            averageNanos.updateAndGet(average -> average == 0 ? elapsed : average + (elapsed - average) / 8);
+            return value;
+        };
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new IllegalStateException("密码哈希失败", cause);
+    }
+}
@@ -0,0 +1,101 @@
+package com.userdept.system.config;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonIncludeProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.userdept.system.cache.CacheInvalidationBus;
+import com.userdept.system.cache.DepartmentTreeCache;
+import com.userdept.system.cache.EntityCache;
+import com.userdept.system.entity.Department;
+import com.userdept.system.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 实体缓存配置
+ * <p>
+ * 用户按ID与用户名、部门按ID与部门编号缓存（本地 + Redis），多节点间通过 Redis 发布/订阅同步失效。
+ * 用户只缓存展示与状态判断需要的字段，密码哈希、盐与身份证号不进入缓存（登录认证直接查询数据库）。
+ * 其他节点修改部门时丢弃本节点的部门树快照，下次访问重新加载。
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    @Value("${cache.entity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.entity.local-capacity:10000}")
+    private int localCapacity;
+
+    @Value("${cache.entity.local-ttl:30}")
+    private long localTtlSeconds;
+
+    @Value("${cache.entity.redis-ttl:300}")
+    private long redisTtlSeconds;
+
+    @Bean
+    public EntityCache<User> userCache(StringRedisTemplate redisTemplate, CacheInvalidationBus invalidationBus,
+                                       MeterRegistry meterRegistry) {
+        return new EntityCache<>("user", User.class, User::getId, User::getUsername,
+                properties(), redisTemplate, entityMapper(), invalidationBus, meterRegistry);
+    }
+
+    @Bean
+    public EntityCache<Department> departmentCache(StringRedisTemplate redisTemplate,
+                                                   CacheInvalidationBus invalidationBus, MeterRegistry meterRegistry,
+                                                   DepartmentTreeCache departmentTreeCache) {
+        EntityCache<Department> cache = new EntityCache<>("department", Department.class, Department::getId,
+                Department::getCode, properties(), redisTemplate, entityMapper(), invalidationBus,
+                meterRegistry);
+        cache.onRemoteEviction(code -> departmentTreeCache.invalidate());
+        return cache;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheInvalidationBus invalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(invalidationBus, new ChannelTopic(CacheInvalidationBus.CHANNEL));
+        return container;
+    }
+
+    private EntityCache.EntityCacheProperties properties() {
+        return new EntityCache.EntityCacheProperties(enabled, localCapacity, localTtlSeconds, redisTtlSeconds);
+    }
+
+    /**
+     * 按字段序列化实体，保留实体上的 Jackson 注解（如 @JsonIgnore）
+     */
+    public static ObjectMapper entityMapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .visibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .visibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                .addMixIn(User.class, CachedUserMixIn.class)
+                .build();
+    }
+
+    /**
+     * 用户缓存包含的字段：用户详情、列表展示与认证状态判断所需
+     */
+    @JsonIncludeProperties({"id", "username", "realname", "mobile", "sex", "email", "status",
+            "createdTime", "updatedTime"})
+    private abstract static class CachedUserMixIn {
+    }
+}
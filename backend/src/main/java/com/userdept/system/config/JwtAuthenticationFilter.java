@@ -1,5 +1,6 @@
 package com.userdept.system.config;
 
+import com.userdept.system.cache.UserPrincipalCache;
 import com.userdept.system.utils.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -23,6 +24,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
     protected void doFilterInternal(
@@ -52,11 +54,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             jwt = authHeader.substring(7);
-            username = jwtUtil.extractUsername(jwt);
+            JwtUtil.VerifiedToken verifiedToken = jwtUtil.verifyToken(jwt);
+            username = verifiedToken.username();
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                UserDetails userDetails = userPrincipalCache.get(username, this.userDetailsService::loadUserByUsername);
+                if (jwtUtil.validateToken(verifiedToken, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -3,6 +3,10 @@ package com.userdept.system.config;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.userdept.system.metrics.MybatisMetricsInterceptor;
+import com.userdept.system.metrics.SqlLogWriter;
+import com.userdept.system.metrics.SqlStatsCollector;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -22,4 +26,14 @@ public class MybatisPlusConfig {
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
         return interceptor;
     }
+
+    /**
+     * 配置语句指标与 SQL 日志拦截器
+     */
+    @Bean
+    public MybatisMetricsInterceptor mybatisMetricsInterceptor(MeterRegistry meterRegistry,
+                                                               SqlStatsCollector sqlStatsCollector,
+                                                               SqlLogWriter sqlLogWriter) {
+        return new MybatisMetricsInterceptor(meterRegistry, sqlStatsCollector, sqlLogWriter);
+    }
 }
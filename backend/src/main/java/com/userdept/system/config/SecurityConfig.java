@@ -1,17 +1,21 @@
 package com.userdept.system.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -26,8 +30,19 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
 
+    /**
+     * @param managementPort Actuator 管理端口（management.server.port），与服务端口相同时健康检查与指标也需要认证
+     * @param adminUsername 系统管理员账号，只有该账号可以查看和调整日志级别
+     */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+            @Value("${management.server.port:-1}") int managementPort,
+            @Value("${server.port:8080}") int serverPort,
+            @Value("${system.admin.username:admin}") String adminUsername) throws Exception {
+        // 健康检查与 Prometheus 只在独立的管理端口上免认证，该端口不对外发布，仅供容器网络内访问
+        RequestMatcher managementProbes = new AndRequestMatcher(
+                request -> managementPort != serverPort && request.getLocalPort() == managementPort,
+                EndpointRequest.to("health", "prometheus"));
         http
                 .csrf(csrf -> csrf.disable())
                 .addFilterBefore(corsFilter(), UsernamePasswordAuthenticationFilter.class)
@@ -39,6 +54,10 @@ public class SecurityConfig {
                                 "/swagger-ui/**",
                                 "/swagger-ui.html"
                         ).permitAll()
+                        .requestMatchers(managementProbes).permitAll()
+                        // 日志级别可在运行时修改（如开启 SQL 日志），只允许系统管理员访问
+                        .requestMatchers(EndpointRequest.to("loggers")).access((authentication, context) ->
+                                new AuthorizationDecision(adminUsername.equals(authentication.get().getName())))
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -47,9 +66,17 @@ public class SecurityConfig {
         return http.build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    /**
+     * 静态方法定义，避免与 JWT 过滤器 -> 用户服务 -> 密码编码器 形成循环依赖
+     */
+    @Bean(destroyMethod = "shutdown")
+    public static BoundedPasswordEncoder passwordEncoder(
+            @Value("${password.hash.cost:10}") int cost,
+            @Value("${password.hash.threads:4}") int threads,
+            @Value("${password.hash.queue-capacity:100}") int queueCapacity,
+            @Value("${password.hash.timeout:5000}") long timeoutMillis,
+            MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(cost, threads, queueCapacity, timeoutMillis, meterRegistry);
     }
 
     @Bean
@@ -9,6 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
 
@@ -22,6 +23,7 @@ public class SystemInitializer {
 
     private final UserMapper userMapper;
     private final Environment env;
+    private final PasswordEncoder passwordEncoder;
     
     @Value("${system.admin.username:admin}")
     private String adminUsername;
@@ -73,9 +75,9 @@ public class SystemInitializer {
         admin.setUpdatedTime(LocalDateTime.now());
         
         // 设置密码
-        String salt = PasswordUtil.generateSalt();
-        admin.setSalt(salt);
-        admin.setPassword(PasswordUtil.hashPassword(adminPassword, salt));
+        String hashedPassword = passwordEncoder.encode(adminPassword);
+        admin.setSalt(PasswordUtil.extractSalt(hashedPassword));
+        admin.setPassword(hashedPassword);
         
         userMapper.insert(admin);
         return admin;
@@ -0,0 +1,67 @@
+package com.userdept.system.config;
+
+import jakarta.servlet.Filter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 虚拟线程配置（virtual-threads 配置文件）
+ * <p>
+ * Tomcat 请求处理与 @Async 任务均在虚拟线程中执行，阻塞在 JDBC、Redis 上的请求不再占用平台线程，
+ * 并发上限改由数据库连接池与 BCrypt 线程池决定。
+ * <p>
+ * 虚拟线程不再像 Tomcat 线程池那样限制同时处理的请求数，全部请求会同时等待数据库连接，
+ * 超过连接获取超时后大量失败；因此用信号量限制同时进入应用的请求数，其余请求在虚拟线程中排队等待。
+ */
+@Slf4j
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        log.info("Tomcat 请求处理使用虚拟线程");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean
+    public FilterRegistrationBean<Filter> concurrentRequestLimitFilter(
+            @Value("${virtual-threads.max-concurrent-requests:200}") int maxConcurrentRequests) {
+        Semaphore permits = new Semaphore(maxConcurrentRequests, true);
+        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待请求许可时被中断", e);
+            }
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                permits.release();
+            }
+        });
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        log.info("虚拟线程模式下同时处理的请求数上限: {}", maxConcurrentRequests);
+        return registration;
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -1,8 +1,8 @@
 package com.userdept.system.controller;
 
-import com.userdept.system.service.DepartmentService;
-import com.userdept.system.service.UserService;
+import com.userdept.system.service.DashboardService;
 import com.userdept.system.vo.ApiResponse;
+import com.userdept.system.vo.DashboardStatsVO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,18 +16,15 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class DashboardController {
 
-    private final UserService userService;
-    private final DepartmentService departmentService;
+    private final DashboardService dashboardService;
 
     @GetMapping("/stats")
     public ResponseEntity<ApiResponse<Map<String, Long>>> getStats() {
-        long userCount = userService.count();
-        long departmentCount = departmentService.count();
-        long activeUserCount = userService.countActiveUsers();
+        DashboardStatsVO statsVO = dashboardService.getStats();
         Map<String, Long> stats = Map.of(
-                "userCount", userCount,
-                "departmentCount", departmentCount,
-                "activeUserCount", activeUserCount
+                "userCount", statsVO.getUserCount(),
+                "departmentCount", statsVO.getDepartmentCount(),
+                "activeUserCount", statsVO.getActiveUserCount()
         );
         return ResponseEntity.ok(ApiResponse.success(stats));
     }
@@ -1,17 +1,23 @@
 package com.userdept.system.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.userdept.system.cache.DepartmentTreeCache;
 import com.userdept.system.dto.DepartmentDTO;
 import com.userdept.system.entity.Department;
 import com.userdept.system.service.DepartmentService;
+import com.userdept.system.utils.CursorUtil;
+import com.userdept.system.utils.PageUtil;
 import com.userdept.system.vo.ApiResponse;
+import com.userdept.system.vo.CursorPageVO;
 import com.userdept.system.vo.PageVO;
 import com.userdept.system.vo.UserDepartmentVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -34,6 +40,7 @@ public class DepartmentController {
             @RequestParam(value = "page", defaultValue = "1") int page,
             @RequestParam(value = "per_page", defaultValue = "10") int perPage,
             @RequestParam(value = "search", required = false) String search) {
+        perPage = PageUtil.perPage(perPage);
         Page<Department> departmentPage = departmentService.getDepartmentPage(page, perPage, search);
         PageVO<Department> pageVO = new PageVO<>(
                 departmentPage.getTotal(),
@@ -44,13 +51,48 @@ public class DepartmentController {
         return ResponseEntity.ok(ApiResponse.success(pageVO));
     }
 
+    /**
+     * 获取部门列表（游标分页）
+     * <p>
+     * 携带 after 参数时启用，首页传空值；仅在 with_total=true 时统计总数
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<ApiResponse<CursorPageVO<Department>>> getDepartmentsByCursor(
+            @RequestParam("after") String after,
+            @RequestParam(value = "per_page", defaultValue = "10") int perPage,
+            @RequestParam(value = "search", required = false) String search,
+            @RequestParam(value = "with_total", defaultValue = "false") boolean withTotal) {
+        perPage = PageUtil.perPage(perPage);
+        // 多取一条用于判断是否存在下一页
+        List<Department> departments = departmentService.getDepartmentsAfter(CursorUtil.decode(after), perPage + 1, search);
+        String nextCursor = null;
+        if (departments.size() > perPage) {
+            departments = departments.subList(0, perPage);
+            nextCursor = CursorUtil.encode(departments.get(perPage - 1).getId());
+        }
+        CursorPageVO<Department> pageVO = new CursorPageVO<>(
+                withTotal ? departmentService.countDepartments(search) : null,
+                perPage,
+                nextCursor,
+                departments
+        );
+        return ResponseEntity.ok(ApiResponse.success(pageVO));
+    }
+
     /**
      * 获取部门树
      */
     @GetMapping("/tree")
-    public ResponseEntity<ApiResponse<List<Department>>> getDepartmentTree() {
-        List<Department> departmentTree = departmentService.getDepartmentTree();
-        return ResponseEntity.ok(ApiResponse.success(departmentTree));
+    public ResponseEntity<byte[]> getDepartmentTree(WebRequest webRequest) {
+        DepartmentTreeCache.Snapshot snapshot = departmentService.getDepartmentTreeSnapshot();
+        // 部门树未变化时直接返回 304
+        if (webRequest.checkNotModified(snapshot.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getJson());
     }
 
     /**
@@ -86,20 +128,32 @@ public class DepartmentController {
     }
 
     /**
-     * 删除部门
+     * 删除部门，cascade 为 true 时同时删除全部下级部门
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<ApiResponse<Void>> deleteDepartment(@PathVariable Long id) {
-        departmentService.deleteDepartment(id);
+    public ResponseEntity<ApiResponse<Void>> deleteDepartment(
+            @PathVariable Long id,
+            @RequestParam(value = "cascade", defaultValue = "false") boolean cascade) {
+        departmentService.deleteDepartment(id, cascade);
         return ResponseEntity.ok(ApiResponse.success());
     }
 
     /**
-     * 获取部门中的用户列表（带加入时间）
+     * 获取部门的祖先链（面包屑），从顶级部门到该部门自身
+     */
+    @GetMapping("/{deptCode}/ancestors")
+    public ResponseEntity<ApiResponse<List<Department>>> getAncestors(@PathVariable String deptCode) {
+        return ResponseEntity.ok(ApiResponse.success(departmentService.getAncestors(deptCode)));
+    }
+
+    /**
+     * 获取部门中的用户列表（带加入时间），recursive 为 true 时包含全部下级部门的用户
      */
     @GetMapping("/{deptCode}/users")
-    public ResponseEntity<ApiResponse<List<UserDepartmentVO>>> getUsersInDepartment(@PathVariable String deptCode) {
-        List<UserDepartmentVO> users = departmentService.getUserDepartmentVOs(deptCode);
+    public ResponseEntity<ApiResponse<List<UserDepartmentVO>>> getUsersInDepartment(
+            @PathVariable String deptCode,
+            @RequestParam(value = "recursive", defaultValue = "false") boolean recursive) {
+        List<UserDepartmentVO> users = departmentService.getUserDepartmentVOs(deptCode, recursive);
         return ResponseEntity.ok(ApiResponse.success(users));
     }
 }
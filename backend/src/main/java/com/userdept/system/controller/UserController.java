@@ -4,16 +4,28 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.userdept.system.dto.UserRequest;
 import com.userdept.system.dto.UserResponse;
 import com.userdept.system.entity.User;
+import com.userdept.system.service.UserExportService;
+import com.userdept.system.service.UserImportService;
 import com.userdept.system.service.UserService;
+import com.userdept.system.utils.CursorUtil;
+import com.userdept.system.utils.PageUtil;
 import com.userdept.system.vo.ApiResponse;
+import com.userdept.system.vo.CursorPageVO;
 import com.userdept.system.vo.PageVO;
+import com.userdept.system.vo.UserImportResultVO;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -26,6 +38,8 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
 
     /**
      * 获取用户列表
@@ -36,6 +50,7 @@ public class UserController {
             @RequestParam(value = "per_page", defaultValue = "10") int perPage,
             @RequestParam(value = "query", required = false) String query) {
 
+        perPage = PageUtil.perPage(perPage);
         Page<User> userPage = userService.getUserPage(page, perPage, query);
         List<UserResponse> userResponses = userService.convertToResponseList(userPage.getRecords());
 
@@ -49,6 +64,70 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success(pageVO));
     }
 
+    /**
+     * 获取用户列表（游标分页）
+     * <p>
+     * 携带 after 参数时启用，首页传空值；仅在 with_total=true 时统计总数
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<ApiResponse<CursorPageVO<UserResponse>>> getUsersByCursor(
+            @RequestParam("after") String after,
+            @RequestParam(value = "per_page", defaultValue = "10") int perPage,
+            @RequestParam(value = "query", required = false) String query,
+            @RequestParam(value = "with_total", defaultValue = "false") boolean withTotal) {
+
+        perPage = PageUtil.perPage(perPage);
+        // 多取一条用于判断是否存在下一页
+        List<User> users = userService.getUsersAfter(CursorUtil.decode(after), perPage + 1, query);
+        String nextCursor = null;
+        if (users.size() > perPage) {
+            users = users.subList(0, perPage);
+            nextCursor = CursorUtil.encode(users.get(perPage - 1).getId());
+        }
+
+        CursorPageVO<UserResponse> pageVO = new CursorPageVO<>(
+                withTotal ? userService.countUsers(query) : null,
+                perPage,
+                nextCursor,
+                userService.convertToResponseList(users)
+        );
+
+        return ResponseEntity.ok(ApiResponse.success(pageVO));
+    }
+
+    /**
+     * 批量导入用户
+     * <p>
+     * 请求体为 CSV（首行为表头，列名同 UserRequest 字段）或 NDJSON（每行一个 JSON 对象），流式读取。
+     * 未指定 format 时根据 Content-Type 判断。
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ApiResponse<UserImportResultVO>> importUsers(
+            @RequestParam(value = "format", required = false) String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream inputStream) {
+        if (!StringUtils.hasText(format)) {
+            format = contentType != null && contentType.contains("json") ? "ndjson" : "csv";
+        }
+        UserImportResultVO result = userImportService.importUsers(inputStream, format);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    /**
+     * 导出全部用户（流式输出 CSV 或 NDJSON）
+     */
+    @GetMapping("/export")
+    public void exportUsers(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(ndjson ? "application/x-ndjson" : "text/csv");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=users." + (ndjson ? "ndjson" : "csv"));
+        userExportService.exportUsers(format, response.getOutputStream());
+    }
+
     /**
      * 获取用户详情
      */
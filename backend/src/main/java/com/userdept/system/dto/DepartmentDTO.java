@@ -3,6 +3,7 @@ package com.userdept.system.dto;
 import lombok.Data;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
 /**
@@ -16,6 +17,7 @@ public class DepartmentDTO {
 
     @NotBlank(message = "部门编号不能为空", groups = Create.class)
     @Size(min = 1, max = 32, message = "部门编号长度必须在1-32个字符之间")
+    @Pattern(regexp = "[^/]*", message = "部门编号不能包含 /")
     private String code;
     
     @NotBlank(message = "部门名称不能为空")
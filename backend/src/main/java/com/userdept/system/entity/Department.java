@@ -28,6 +28,11 @@ public class Department {
      * 父部门编号
      */
     private String parentCode;
+
+    /**
+     * 祖先路径（含自身），如 /root/grade3/class2/，由服务端维护
+     */
+    private String path;
     
     /**
      * 部门名称
@@ -0,0 +1,11 @@
+package com.userdept.system.exception;
+
+/**
+ * 并发冲突异常，读取的数据在加锁前已被其他请求修改时抛出，对应 HTTP 409，客户端可重试
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
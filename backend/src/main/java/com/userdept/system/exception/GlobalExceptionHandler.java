@@ -118,6 +118,26 @@ public class GlobalExceptionHandler {
         return ApiResponse.error(HttpStatus.BAD_REQUEST.value(), e.getMessage());
     }
 
+    /**
+     * 处理并发冲突异常
+     */
+    @ExceptionHandler(ConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiResponse<Void> handleConflictException(ConflictException e) {
+        log.warn("并发冲突: {}", e.getMessage());
+        return ApiResponse.error(HttpStatus.CONFLICT.value(), e.getMessage());
+    }
+
+    /**
+     * 处理系统繁忙异常
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiResponse<Void> handleServiceBusyException(ServiceBusyException e) {
+        log.warn("系统繁忙: {}", e.getMessage());
+        return ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+    }
+
     /**
      * 处理其他所有未预期的异常
      */
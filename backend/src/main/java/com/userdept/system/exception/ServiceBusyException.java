@@ -0,0 +1,15 @@
+package com.userdept.system.exception;
+
+/**
+ * 系统繁忙异常，资源池已满时抛出，对应 HTTP 503
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+
+    public ServiceBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,26 @@
+package com.userdept.system.mapper;
+
+import com.userdept.system.vo.DashboardStatsVO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 仪表盘统计Mapper接口
+ */
+@Mapper
+public interface DashboardMapper {
+
+    /**
+     * 一次查询统计用户总数、部门总数与启用用户数
+     * <p>
+     * 启动与定时对账时执行，超时（秒）短于默认值，避免大表计数长时间占用连接
+     *
+     * @return 统计数据
+     */
+    @Select("SELECT (SELECT COUNT(*) FROM `user`) AS user_count, "
+            + "(SELECT COUNT(*) FROM `department`) AS department_count, "
+            + "(SELECT COUNT(*) FROM `user` WHERE `status` = 1) AS active_user_count")
+    @Options(timeout = 5)
+    DashboardStatsVO selectStats();
+}
@@ -2,11 +2,88 @@ package com.userdept.system.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.userdept.system.entity.Department;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 部门Mapper接口
  */
 @Mapper
 public interface DepartmentMapper extends BaseMapper<Department> {
+
+    /**
+     * 是否存在子部门（走 idx_parent_code，找到一行即返回）
+     *
+     * @param code 部门编号
+     * @return 是否存在子部门
+     */
+    @Select("SELECT EXISTS(SELECT 1 FROM department WHERE parent_code = #{code})")
+    boolean existsChild(@Param("code") String code);
+
+    /**
+     * 删除子树（含自身）中全部部门的用户关联
+     *
+     * @param pathPattern 路径前缀的 LIKE 模式（已转义）
+     * @return 删除的行数
+     */
+    @Delete("DELETE ud FROM user_department ud JOIN department d ON d.code = ud.department_code "
+            + "WHERE d.path LIKE #{pathPattern}")
+    int deleteSubtreeMemberships(@Param("pathPattern") String pathPattern);
+
+    /**
+     * 删除子树（含自身）中的全部部门
+     *
+     * @param pathPattern 路径前缀的 LIKE 模式（已转义）
+     * @return 删除的行数
+     */
+    @Delete("DELETE FROM department WHERE path LIKE #{pathPattern}")
+    int deleteSubtree(@Param("pathPattern") String pathPattern);
+
+    /**
+     * 按ID查询并加锁（移动、删除部门时使用）
+     *
+     * @param id 部门ID
+     * @return 部门
+     */
+    @Select("SELECT * FROM department WHERE id = #{id} FOR UPDATE")
+    Department selectByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * 按编号批量查询并加锁（锁定新父部门的祖先链，防止并发移动形成环）
+     *
+     * @param codes 部门编号
+     * @return 部门列表
+     */
+    @Select("<script>SELECT * FROM department WHERE code IN "
+            + "<foreach collection='codes' item='code' open='(' separator=',' close=')'>#{code}</foreach>"
+            + " FOR UPDATE</script>")
+    List<Department> selectByCodesForUpdate(@Param("codes") Collection<String> codes);
+
+    /**
+     * 查询子树（含自身）并加锁
+     *
+     * @param pathPattern 路径前缀的 LIKE 模式（已转义），如 /a/b/%
+     * @return 子树中的部门（仅 id、code、path）
+     */
+    @Select("SELECT id, code, path FROM department WHERE path LIKE #{pathPattern} FOR UPDATE")
+    List<Department> selectSubtreeForUpdate(@Param("pathPattern") String pathPattern);
+
+    /**
+     * 一条语句改写子树（含自身）的路径前缀
+     *
+     * @param oldPath 原路径
+     * @param newPath 新路径
+     * @param pathPattern 原路径前缀的 LIKE 模式（已转义）
+     * @return 更新的行数
+     */
+    @Update("UPDATE department SET path = CONCAT(#{newPath}, SUBSTRING(path, CHAR_LENGTH(#{oldPath}) + 1)) "
+            + "WHERE path LIKE #{pathPattern}")
+    int updateSubtreePath(@Param("oldPath") String oldPath, @Param("newPath") String newPath,
+                          @Param("pathPattern") String pathPattern);
 }
@@ -2,11 +2,27 @@ package com.userdept.system.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.userdept.system.entity.UserDepartment;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 
 /**
  * 用户部门关联Mapper接口
  */
 @Mapper
 public interface UserDepartmentMapper extends BaseMapper<UserDepartment> {
+
+    /**
+     * 插入用户部门关联，已存在时不做修改（依赖 uk_username_department_code 唯一约束）
+     * <p>
+     * 不使用 INSERT IGNORE，避免把截断、非空等其他错误也降级为警告。
+     * 默认连接参数下已存在时受影响行数同样为 1，需根据是否回填了主键判断是否实际插入。
+     *
+     * @param userDepartment 用户部门关联，实际插入时回填 id，已存在时 id 保持为空
+     */
+    @Insert("INSERT INTO user_department (username, department_code, creator, created_time) "
+            + "VALUES (#{username}, #{departmentCode}, #{creator}, #{createdTime}) "
+            + "ON DUPLICATE KEY UPDATE id = id")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    void insertIfAbsent(UserDepartment userDepartment);
 }
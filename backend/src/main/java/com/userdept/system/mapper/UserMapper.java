@@ -2,11 +2,34 @@ package com.userdept.system.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.userdept.system.entity.User;
+import com.userdept.system.vo.UserExportVO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * 用户Mapper接口
  */
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
+
+    /**
+     * 按ID升序分批查询用户及其部门编码（键集分页）
+     * <p>
+     * 先在子查询中按主键取出一批用户，再与用户部门关联左连接，每个部门一行，
+     * 同一用户的行相邻且不会跨批次。不聚合部门编码，不受 group_concat_max_len 限制
+     *
+     * @param afterId 上一批最后一个用户ID，从 0 开始
+     * @param limit 每批用户数
+     * @return 按用户ID、关联ID排序的导出行
+     */
+    @Select("SELECT u.id, u.username, u.realname, u.email, u.mobile, u.sex, u.status, "
+            + "ud.department_code, u.created_time, u.updated_time "
+            + "FROM (SELECT id, username, realname, email, mobile, sex, status, created_time, updated_time "
+            + "FROM `user` WHERE id > #{afterId} ORDER BY id LIMIT #{limit}) u "
+            + "LEFT JOIN user_department ud ON ud.username = u.username "
+            + "ORDER BY u.id, ud.id")
+    List<UserExportVO> selectExportBatch(@Param("afterId") long afterId, @Param("limit") int limit);
 }
@@ -0,0 +1,88 @@
+package com.userdept.system.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyBatis 语句指标拦截器
+ * <p>
+ * 按 Mapper 语句记录执行耗时与次数（mybatis.statement），并交给 {@link SqlStatsCollector}
+ * 记录到当前请求与全局 SQL 统计中，交给 {@link SqlLogWriter} 输出结构化 SQL 日志。
+ * 游标查询只统计打开游标的耗时。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor",
+                args = {MappedStatement.class, Object.class, RowBounds.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class MybatisMetricsInterceptor implements Interceptor {
+
+    private static final String METRIC_NAME = "mybatis.statement";
+
+    private final MeterRegistry meterRegistry;
+
+    private final SqlStatsCollector sqlStatsCollector;
+
+    private final SqlLogWriter sqlLogWriter;
+
+    public MybatisMetricsInterceptor(MeterRegistry meterRegistry, SqlStatsCollector sqlStatsCollector,
+                                     SqlLogWriter sqlLogWriter) {
+        this.meterRegistry = meterRegistry;
+        this.sqlStatsCollector = sqlStatsCollector;
+        this.sqlLogWriter = sqlLogWriter;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement ms = (MappedStatement) args[0];
+        long start = System.nanoTime();
+        String outcome = "success";
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            boolean stats = sqlStatsCollector.isEnabled();
+            boolean logging = sqlLogWriter.isEnabled();
+            if (stats || logging) {
+                BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : ms.getBoundSql(args[1]);
+                String shape = SqlStatsCollector.normalize(boundSql.getSql());
+                if (stats) {
+                    sqlStatsCollector.onStatement(ms, boundSql, shape, elapsed);
+                }
+                if (logging) {
+                    sqlLogWriter.write(ms, boundSql, shape, elapsed, result);
+                }
+            }
+            Timer.builder(METRIC_NAME)
+                    .description("MyBatis 语句执行耗时")
+                    .tag("statement", ms.getId())
+                    .tag("type", ms.getSqlCommandType().name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+}
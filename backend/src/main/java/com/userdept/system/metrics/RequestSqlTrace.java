@@ -0,0 +1,82 @@
+package com.userdept.system.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 当前请求执行的 SQL 语句记录
+ * <p>
+ * 由 Controller 指标切面在方法开始时开启、结束时取出，MyBatis 拦截器每执行一条语句记录一次。
+ * 按语句形态（Mapper 语句 + 归一化 SQL）累计次数与耗时，用于发现 N+1 查询。
+ * 不在请求内执行的语句（如定时任务）不记录。
+ */
+public final class RequestSqlTrace {
+
+    private static final ThreadLocal<RequestSqlTrace> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 语句形态 -> [执行次数, 累计耗时（纳秒）]
+     */
+    private final Map<String, long[]> shapes = new HashMap<>();
+
+    private int statements;
+
+    private long totalNanos;
+
+    private RequestSqlTrace() {
+    }
+
+    /**
+     * 开始记录，返回外层记录（嵌套调用时用于恢复）
+     */
+    public static RequestSqlTrace begin() {
+        RequestSqlTrace previous = CURRENT.get();
+        CURRENT.set(new RequestSqlTrace());
+        return previous;
+    }
+
+    /**
+     * 结束记录并恢复外层记录
+     *
+     * @return 本次记录
+     */
+    public static RequestSqlTrace end(RequestSqlTrace previous) {
+        RequestSqlTrace current = CURRENT.get();
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+        return current == null ? new RequestSqlTrace() : current;
+    }
+
+    static void record(String shape, long nanos) {
+        RequestSqlTrace current = CURRENT.get();
+        if (current == null) {
+            return;
+        }
+        current.statements++;
+        current.totalNanos += nanos;
+        if (shape != null) {
+            long[] stats = current.shapes.computeIfAbsent(shape, k -> new long[2]);
+            stats[0]++;
+            stats[1] += nanos;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * 语句形态 -> [执行次数, 累计耗时（纳秒）]
+     */
+    public Map<String, long[]> getShapes() {
+        return Collections.unmodifiableMap(shapes);
+    }
+}
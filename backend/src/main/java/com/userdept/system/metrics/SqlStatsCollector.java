@@ -0,0 +1,292 @@
+package com.userdept.system.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 统计与问题检测
+ * <p>
+ * 按语句形态（归一化后的 SQL，IN 列表折叠为 {@code ?...}）汇总执行次数与耗时；
+ * 超过耗时阈值的语句记录慢 SQL 日志（参数只输出类型与哈希指纹，不输出值）；
+ * 同一请求中同一形态执行次数超过阈值时记录疑似 N+1 日志。
+ * 汇总结果通过 {@code /actuator/sqlstats} 查看。
+ */
+@Slf4j
+@Component
+public class SqlStatsCollector {
+
+    @Value("${sql.monitor.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sql.monitor.slow-threshold:200}")
+    private long slowThresholdMillis;
+
+    @Value("${sql.monitor.repeat-threshold:10}")
+    private int repeatThreshold;
+
+    @Value("${sql.monitor.max-shapes:500}")
+    private int maxShapes;
+
+    /**
+     * 语句形态 -> 汇总
+     */
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+    /**
+     * 接口 + 语句形态 -> 重复执行汇总
+     */
+    private final Map<String, RepeatStats> repeats = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录一条语句的执行
+     *
+     * @param shape 归一化后的 SQL，见 {@link #normalize(String)}
+     */
+    public void onStatement(MappedStatement ms, BoundSql boundSql, String shape, long nanos) {
+        RequestSqlTrace.record(shape, nanos);
+
+        boolean slow = nanos > TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null && shapes.size() < maxShapes) {
+            stats = shapes.computeIfAbsent(shape, k -> new ShapeStats(ms.getId(), k));
+        }
+        if (stats != null) {
+            stats.record(nanos, slow);
+        }
+        if (slow) {
+            log.warn("慢 SQL: {} 耗时 {}ms，参数 {}，SQL: {}", ms.getId(),
+                    TimeUnit.NANOSECONDS.toMillis(nanos), fingerprint(ms, boundSql), shape);
+        }
+    }
+
+    /**
+     * 请求结束时检查重复执行的语句
+     *
+     * @param endpoint 接口（Controller 类名.方法名）
+     */
+    public void onRequestEnd(String endpoint, RequestSqlTrace trace) {
+        for (Map.Entry<String, long[]> entry : trace.getShapes().entrySet()) {
+            long count = entry.getValue()[0];
+            if (count <= repeatThreshold) {
+                continue;
+            }
+            String key = endpoint + " " + entry.getKey();
+            RepeatStats stats = repeats.get(key);
+            if (stats == null && repeats.size() < maxShapes) {
+                stats = repeats.computeIfAbsent(key, k -> new RepeatStats(endpoint, entry.getKey()));
+            }
+            if (stats != null) {
+                stats.record(count);
+            }
+            log.warn("疑似 N+1 查询: {} 中同一语句执行 {} 次，累计 {}ms，SQL: {}", endpoint, count,
+                    TimeUnit.NANOSECONDS.toMillis(entry.getValue()[1]), entry.getKey());
+        }
+    }
+
+    /**
+     * 累计耗时最高的语句
+     */
+    public List<ShapeSummary> topStatements(int limit) {
+        return shapes.values().stream()
+                .map(ShapeStats::summary)
+                .sorted(Comparator.comparingDouble(ShapeSummary::totalMs).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * 单次请求内重复次数最多的语句
+     */
+    public List<RepeatSummary> topRepeats(int limit) {
+        return repeats.values().stream()
+                .map(RepeatStats::summary)
+                .sorted(Comparator.comparingLong(RepeatSummary::maxRepeat).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * 清空汇总
+     */
+    public void reset() {
+        shapes.clear();
+        repeats.clear();
+    }
+
+    /**
+     * 归一化 SQL：合并空白，将 {@code ?, ?, ?} 折叠为 {@code ?...}，使不同长度的 IN 列表属于同一形态
+     */
+    public static String normalize(String sql) {
+        StringBuilder collapsed = new StringBuilder(sql.length());
+        boolean whitespace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                whitespace = true;
+                continue;
+            }
+            if (whitespace && collapsed.length() > 0) {
+                collapsed.append(' ');
+            }
+            whitespace = false;
+            collapsed.append(c);
+        }
+
+        StringBuilder sb = new StringBuilder(collapsed.length());
+        int n = collapsed.length();
+        for (int i = 0; i < n; i++) {
+            char c = collapsed.charAt(i);
+            sb.append(c);
+            if (c != '?') {
+                continue;
+            }
+            int end = i;
+            while (true) {
+                int k = end + 1;
+                if (k < n && collapsed.charAt(k) == ',') {
+                    k++;
+                } else {
+                    break;
+                }
+                if (k < n && collapsed.charAt(k) == ' ') {
+                    k++;
+                }
+                if (k < n && collapsed.charAt(k) == '?') {
+                    end = k;
+                } else {
+                    break;
+                }
+            }
+            if (end > i) {
+                sb.append("...");
+                i = end;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 参数指纹：参数个数、各参数类型与参数值的哈希，不输出参数值本身
+     */
+    static String fingerprint(MappedStatement ms, BoundSql boundSql) {
+        try {
+            Configuration configuration = ms.getConfiguration();
+            Object parameter = boundSql.getParameterObject();
+            MetaObject metaObject = parameter == null ? null : configuration.newMetaObject(parameter);
+            List<ParameterMapping> mappings = boundSql.getParameterMappings();
+            StringJoiner types = new StringJoiner(",", "[", "]");
+            int hash = 1;
+            for (ParameterMapping mapping : mappings) {
+                String property = mapping.getProperty();
+                Object value;
+                if (boundSql.hasAdditionalParameter(property)) {
+                    value = boundSql.getAdditionalParameter(property);
+                } else if (parameter == null) {
+                    value = null;
+                } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+                    value = parameter;
+                } else {
+                    value = metaObject.getValue(property);
+                }
+                types.add(value == null ? "null" : value.getClass().getSimpleName());
+                hash = 31 * hash + Objects.hashCode(value);
+            }
+            return mappings.size() + types.toString() + "#" + Integer.toHexString(hash);
+        } catch (RuntimeException e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * 语句形态汇总
+     */
+    private static final class ShapeStats {
+
+        private final String statement;
+        private final String sql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder slowCount = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        ShapeStats(String statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        void record(long nanos, boolean slow) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (slow) {
+                slowCount.increment();
+            }
+        }
+
+        ShapeSummary summary() {
+            long executions = count.sum();
+            double totalMs = totalNanos.sum() / 1_000_000.0;
+            return new ShapeSummary(statement, sql, executions, totalMs,
+                    executions == 0 ? 0 : totalMs / executions, maxNanos.get() / 1_000_000.0, slowCount.sum());
+        }
+    }
+
+    /**
+     * 单次请求内重复执行汇总
+     */
+    private static final class RepeatStats {
+
+        private final String endpoint;
+        private final String sql;
+        private final LongAdder occurrences = new LongAdder();
+        private final AtomicLong maxRepeat = new AtomicLong();
+
+        RepeatStats(String endpoint, String sql) {
+            this.endpoint = endpoint;
+            this.sql = sql;
+        }
+
+        void record(long repeat) {
+            occurrences.increment();
+            maxRepeat.accumulateAndGet(repeat, Math::max);
+        }
+
+        RepeatSummary summary() {
+            return new RepeatSummary(endpoint, sql, occurrences.sum(), maxRepeat.get());
+        }
+    }
+
+    /**
+     * 语句汇总，耗时单位为毫秒
+     */
+    public record ShapeSummary(String statement, String sql, long count, double totalMs, double avgMs,
+                               double maxMs, long slowCount) {
+    }
+
+    /**
+     * 重复执行汇总：出现重复的请求数与单次请求内的最大重复次数
+     */
+    public record RepeatSummary(String endpoint, String sql, long occurrences, long maxRepeat) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.userdept.system.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SQL 统计端点：{@code GET /actuator/sqlstats?top=20} 查看，{@code DELETE /actuator/sqlstats} 清空
+ */
+@Component
+@Endpoint(id = "sqlstats")
+@RequiredArgsConstructor
+public class SqlStatsEndpoint {
+
+    private static final int DEFAULT_TOP = 20;
+
+    private final SqlStatsCollector sqlStatsCollector;
+
+    @ReadOperation
+    public Map<String, Object> sqlStats(@Nullable Integer top) {
+        int limit = top == null || top < 1 ? DEFAULT_TOP : top;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statements", sqlStatsCollector.topStatements(limit));
+        result.put("repeated", sqlStatsCollector.topRepeats(limit));
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sqlStatsCollector.reset();
+    }
+}
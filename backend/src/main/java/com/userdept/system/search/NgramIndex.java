@@ -0,0 +1,328 @@
+package com.userdept.system.search;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存 n-gram 倒排索引
+ * <p>
+ * 为每条记录的若干文本字段建立单字（1-gram）与双字（2-gram）倒排表，
+ * 查询语义与 {@code LIKE '%q%'} 一致（不区分大小写），支持中文。
+ * 查询时先求 n-gram 倒排表交集得到候选，再逐条校验子串并打分：
+ * 完全匹配 &gt; 前缀匹配 &gt; 包含，同分按 ID 倒序。
+ * <p>
+ * 记录以内部序号存储，倒排表按序号递增追加。更新或删除时旧序号仅做删除标记，
+ * 删除标记累积到一定比例后整体压缩重建。读多写少，使用读写锁保证线程安全。
+ */
+public class NgramIndex {
+
+    private static final int SCORE_EXACT = 3;
+    private static final int SCORE_PREFIX = 2;
+    private static final int SCORE_CONTAINS = 1;
+
+    private static final int MIN_COMPACT_THRESHOLD = 1024;
+
+    private static final int SCORE_SHIFT = 48;
+    private static final long ID_MASK = (1L << SCORE_SHIFT) - 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * n-gram -> 内部序号倒排表（递增）
+     */
+    private Map<String, IntList> postings = new HashMap<>();
+
+    /**
+     * 内部序号 -> 记录ID
+     */
+    private long[] ids = new long[16];
+
+    /**
+     * 内部序号 -> 小写后的字段文本
+     */
+    private String[][] fields = new String[16][];
+
+    /**
+     * 记录ID -> 内部序号
+     */
+    private Map<Long, Integer> ordinals = new HashMap<>();
+
+    private BitSet deleted = new BitSet();
+
+    private int nextOrdinal;
+
+    private int deletedCount;
+
+    /**
+     * 添加或替换记录
+     *
+     * @param id 记录ID，取值范围 [0, 2^48)
+     * @param values 需要索引的字段值，允许为空
+     */
+    public void put(long id, String... values) {
+        lock.writeLock().lock();
+        try {
+            removeWithoutLock(id);
+            addWithoutLock(id, normalize(values));
+            compactIfNecessary();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除记录
+     *
+     * @param id 记录ID
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeWithoutLock(id);
+            compactIfNecessary();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset(16);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 当前有效记录数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询包含关键词的记录
+     *
+     * @param query 关键词
+     * @return 按相关度排序的记录ID列表
+     */
+    public List<Long> search(String query) {
+        if (!StringUtils.hasText(query)) {
+            return new ArrayList<>();
+        }
+        String q = query.trim().toLowerCase(Locale.ROOT);
+
+        lock.readLock().lock();
+        try {
+            IntList candidates = candidates(q);
+            if (candidates == null) {
+                return new ArrayList<>();
+            }
+
+            // 排序键：高位为得分，低位为记录ID，升序排序后倒序读取即为 得分降序、ID降序
+            long[] keys = new long[candidates.size()];
+            int count = 0;
+            for (int i = 0; i < candidates.size(); i++) {
+                int ordinal = candidates.get(i);
+                if (deleted.get(ordinal)) {
+                    continue;
+                }
+                int score = score(fields[ordinal], q);
+                if (score > 0) {
+                    keys[count++] = ((long) score << SCORE_SHIFT) | ids[ordinal];
+                }
+            }
+            Arrays.sort(keys, 0, count);
+
+            List<Long> result = new ArrayList<>(count);
+            for (int i = count - 1; i >= 0; i--) {
+                result.add(keys[i] & ID_MASK);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 求关键词全部 n-gram 倒排表的交集，任一 n-gram 不存在时返回 null
+     */
+    private IntList candidates(String q) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (q.length() == 1) {
+            grams.add(q);
+        } else {
+            for (int i = 0; i + 1 < q.length(); i++) {
+                grams.add(q.substring(i, i + 2));
+            }
+        }
+
+        List<IntList> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                return null;
+            }
+            lists.add(list);
+        }
+        // 从最短的倒排表开始求交集
+        lists.sort(Comparator.comparingInt(IntList::size));
+        IntList result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.size() > 0; i++) {
+            result = result.intersect(lists.get(i));
+        }
+        return result;
+    }
+
+    private static int score(String[] values, String q) {
+        int best = 0;
+        for (String value : values) {
+            if (value.equals(q)) {
+                return SCORE_EXACT;
+            }
+            if (value.startsWith(q)) {
+                best = Math.max(best, SCORE_PREFIX);
+            } else if (best == 0 && value.contains(q)) {
+                best = SCORE_CONTAINS;
+            }
+        }
+        return best;
+    }
+
+    private void addWithoutLock(long id, String[] values) {
+        int ordinal = nextOrdinal++;
+        if (ordinal == ids.length) {
+            ids = Arrays.copyOf(ids, ordinal * 2);
+            fields = Arrays.copyOf(fields, ordinal * 2);
+        }
+        ids[ordinal] = id;
+        fields[ordinal] = values;
+        ordinals.put(id, ordinal);
+
+        Set<String> grams = new LinkedHashSet<>();
+        for (String value : values) {
+            for (int i = 0; i < value.length(); i++) {
+                grams.add(value.substring(i, i + 1));
+                if (i + 1 < value.length()) {
+                    grams.add(value.substring(i, i + 2));
+                }
+            }
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, k -> new IntList()).add(ordinal);
+        }
+    }
+
+    private void removeWithoutLock(long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal != null) {
+            deleted.set(ordinal);
+            fields[ordinal] = null;
+            deletedCount++;
+        }
+    }
+
+    /**
+     * 删除标记过多时，按现有有效记录重建倒排表
+     */
+    private void compactIfNecessary() {
+        if (deletedCount < Math.max(MIN_COMPACT_THRESHOLD, ordinals.size() / 4)) {
+            return;
+        }
+        long[] oldIds = ids;
+        String[][] oldFields = fields;
+        BitSet oldDeleted = deleted;
+        int oldNext = nextOrdinal;
+
+        reset(Math.max(16, ordinals.size() * 2));
+        for (int ordinal = 0; ordinal < oldNext; ordinal++) {
+            if (!oldDeleted.get(ordinal)) {
+                addWithoutLock(oldIds[ordinal], oldFields[ordinal]);
+            }
+        }
+    }
+
+    private void reset(int capacity) {
+        postings = new HashMap<>();
+        ids = new long[capacity];
+        fields = new String[capacity][];
+        ordinals = new HashMap<>();
+        deleted = new BitSet();
+        nextOrdinal = 0;
+        deletedCount = 0;
+    }
+
+    private static String[] normalize(String[] values) {
+        String[] normalized = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            normalized[i] = values[i] == null ? "" : values[i].toLowerCase(Locale.ROOT);
+        }
+        return normalized;
+    }
+
+    /**
+     * 递增的 int 倒排表
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        IntList intersect(IntList other) {
+            IntList result = new IntList();
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                int a = values[i];
+                int b = other.values[j];
+                if (a == b) {
+                    result.add(a);
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return result;
+        }
+    }
+}
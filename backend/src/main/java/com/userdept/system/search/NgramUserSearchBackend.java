@@ -0,0 +1,167 @@
+package com.userdept.system.search;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.userdept.system.cache.CacheInvalidationBus;
+import com.userdept.system.entity.User;
+import com.userdept.system.mapper.UserMapper;
+import com.userdept.system.utils.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于内存 n-gram 倒排索引的用户搜索后端
+ * <p>
+ * 应用启动完成后从数据库全量构建索引，之后由用户服务的写操作在事务提交后增量维护，
+ * 并通过 {@link CacheInvalidationBus} 通知其他节点按用户ID从数据库重新读取。
+ * <p>
+ * 分页查询与总数查询使用同一关键词，最近的查询结果按索引版本缓存，索引变化后自动失效。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "search.user", name = "backend", havingValue = "ngram", matchIfMissing = true)
+public class NgramUserSearchBackend implements UserSearchBackend {
+
+    private static final String CHANNEL = "search.user";
+
+    private static final int RESULT_CACHE_CAPACITY = 256;
+
+    private final UserMapper userMapper;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final NgramIndex index = new NgramIndex();
+
+    /**
+     * 全量构建期间持有，增量维护会等待构建完成，不会被构建读到的旧数据覆盖
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * 索引修改次数，查询结果缓存以此判断是否过期
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 规范化后的关键词 -> 查询结果
+     */
+    private final LRUCache<String, CachedResult> resultCache = CacheUtil.newLRUCache(RESULT_CACHE_CAPACITY);
+
+    private volatile boolean ready;
+
+    /**
+     * 订阅其他节点的用户变更通知
+     */
+    @PostConstruct
+    public void init() {
+        invalidationBus.register(CHANNEL, (id, keys) -> {
+            if (id != null) {
+                reload(id);
+            }
+        });
+    }
+
+    /**
+     * 启动完成后构建索引（在管理员账户初始化之后）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        writeLock.lock();
+        try {
+            index.clear();
+            List<User> users = userMapper.selectList(Wrappers.<User>lambdaQuery()
+                    .select(User::getId, User::getUsername, User::getRealname, User::getMobile));
+            users.forEach(user -> index.put(user.getId(), user.getUsername(), user.getRealname(), user.getMobile()));
+            version.incrementAndGet();
+            ready = true;
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("用户搜索索引构建完成，用户数: {}，耗时: {}ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public List<Long> search(String query) {
+        if (!StringUtils.hasText(query)) {
+            return List.of();
+        }
+        String key = query.trim().toLowerCase(Locale.ROOT);
+        long currentVersion = version.get();
+        CachedResult cached = resultCache.get(key);
+        if (cached != null && cached.version() == currentVersion) {
+            return cached.ids();
+        }
+        // 版本号在查询前读取，查询期间索引被修改时缓存的结果会在下次访问时被判定为过期
+        List<Long> ids = Collections.unmodifiableList(index.search(key));
+        resultCache.put(key, new CachedResult(currentVersion, ids));
+        return ids;
+    }
+
+    @Override
+    public void index(User user) {
+        TransactionUtil.afterCommit(() -> {
+            put(user.getId(), user);
+            invalidationBus.publish(CHANNEL, user.getId(), List.of());
+        });
+    }
+
+    @Override
+    public void remove(Long userId) {
+        TransactionUtil.afterCommit(() -> {
+            put(userId, null);
+            invalidationBus.publish(CHANNEL, userId, List.of());
+        });
+    }
+
+    /**
+     * 其他节点修改了用户，从数据库重新读取
+     */
+    private void reload(Long userId) {
+        put(userId, userMapper.selectOne(Wrappers.<User>lambdaQuery()
+                .select(User::getId, User::getUsername, User::getRealname, User::getMobile)
+                .eq(User::getId, userId)));
+    }
+
+    /**
+     * 更新索引，user 为 null 时删除
+     */
+    private void put(Long userId, User user) {
+        writeLock.lock();
+        try {
+            if (user == null) {
+                index.remove(userId);
+            } else {
+                index.put(userId, user.getUsername(), user.getRealname(), user.getMobile());
+            }
+            version.incrementAndGet();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 缓存的查询结果（不可变）
+     */
+    private record CachedResult(long version, List<Long> ids) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.userdept.system.search;
+
+import com.userdept.system.entity.User;
+
+import java.util.List;
+
+/**
+ * 用户搜索后端接口
+ * <p>
+ * 未配置搜索后端或后端尚未就绪时，用户查询回退为数据库 LIKE 查询。
+ */
+public interface UserSearchBackend {
+
+    /**
+     * 是否已完成初始化，可以提供查询
+     *
+     * @return 是否就绪
+     */
+    boolean isReady();
+
+    /**
+     * 按用户名、真实姓名、手机号查询
+     *
+     * @param query 关键词
+     * @return 按相关度排序的用户ID列表
+     */
+    List<Long> search(String query);
+
+    /**
+     * 新增或更新用户索引（事务提交后生效）
+     *
+     * @param user 用户
+     */
+    void index(User user);
+
+    /**
+     * 删除用户索引（事务提交后生效）
+     *
+     * @param userId 用户ID
+     */
+    void remove(Long userId);
+}
@@ -0,0 +1,55 @@
+package com.userdept.system.service;
+
+import com.userdept.system.vo.DashboardStatsVO;
+
+/**
+ * 仪表盘统计服务接口
+ */
+public interface DashboardService {
+
+    /**
+     * 获取统计数据（内存计数，O(1)）
+     *
+     * @return 统计数据
+     */
+    DashboardStatsVO getStats();
+
+    /**
+     * 从数据库重新统计并校正计数
+     */
+    void reconcile();
+
+    /**
+     * 用户已创建（事务提交后计数）
+     *
+     * @param active 是否启用
+     */
+    void onUserCreated(boolean active);
+
+    /**
+     * 用户已删除（事务提交后计数）
+     *
+     * @param active 删除前是否启用
+     */
+    void onUserDeleted(boolean active);
+
+    /**
+     * 用户状态已变更（事务提交后计数）
+     *
+     * @param wasActive 变更前是否启用
+     * @param active 变更后是否启用
+     */
+    void onUserStatusChanged(boolean wasActive, boolean active);
+
+    /**
+     * 部门已创建（事务提交后计数）
+     */
+    void onDepartmentCreated();
+
+    /**
+     * 部门已删除（事务提交后计数）
+     *
+     * @param count 删除的部门数（级联删除时包含下级部门）
+     */
+    void onDepartmentsDeleted(int count);
+}
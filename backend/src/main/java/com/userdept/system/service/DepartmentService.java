@@ -1,6 +1,7 @@
 package com.userdept.system.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.userdept.system.cache.DepartmentTreeCache;
 import com.userdept.system.dto.DepartmentDTO;
 import com.userdept.system.entity.Department;
 import com.userdept.system.entity.User;
@@ -23,6 +24,24 @@ public interface DepartmentService {
      * @return 分页结果
      */
     Page<Department> getDepartmentPage(int page, int perPage, String search);
+
+    /**
+     * 游标分页查询部门列表（按 ID 倒序）
+     * 
+     * @param afterId 上一页最后一条记录的ID，为空时从第一页开始
+     * @param limit 最多返回数量
+     * @param search 查询条件
+     * @return 部门列表
+     */
+    List<Department> getDepartmentsAfter(Long afterId, int limit, String search);
+
+    /**
+     * 统计符合条件的部门数量
+     * 
+     * @param search 查询条件
+     * @return 部门数量
+     */
+    long countDepartments(String search);
     
     /**
      * 获取部门树形结构
@@ -30,6 +49,13 @@ public interface DepartmentService {
      * @return 树形结构的部门列表
      */
     List<Department> getDepartmentTree();
+
+    /**
+     * 获取部门树快照（含序列化后的响应体与 ETag）
+     * 
+     * @return 部门树快照
+     */
+    DepartmentTreeCache.Snapshot getDepartmentTreeSnapshot();
     
     /**
      * 通过编号获取部门
@@ -60,8 +86,17 @@ public interface DepartmentService {
      * 删除部门
      * 
      * @param deptId 部门ID
+     * @param cascade 是否级联删除全部下级部门及其用户关联；为 false 时存在子部门则拒绝删除
+     */
+    void deleteDepartment(Long deptId, boolean cascade);
+    
+    /**
+     * 获取部门的祖先链（面包屑）
+     * 
+     * @param code 部门编号
+     * @return 从顶级部门到该部门自身的列表
      */
-    void deleteDepartment(Long deptId);
+    List<Department> getAncestors(String code);
     
     /**
      * 获取指定部门中的用户
@@ -110,9 +145,10 @@ public interface DepartmentService {
      * 获取用户部门视图对象列表
      * 
      * @param departmentCode 部门编号
+     * @param recursive 是否包含全部下级部门的用户（同一用户只出现一次，取层级最高的部门）
      * @return 用户部门视图对象列表
      */
-    List<UserDepartmentVO> getUserDepartmentVOs(String departmentCode);
+    List<UserDepartmentVO> getUserDepartmentVOs(String departmentCode, boolean recursive);
 
     /**
      * 根据部门ID获取部门对象
@@ -0,0 +1,18 @@
+package com.userdept.system.service;
+
+import java.io.OutputStream;
+
+/**
+ * 用户导出服务接口
+ */
+public interface UserExportService {
+
+    /**
+     * 流式导出全部用户，内存占用与用户数无关
+     *
+     * @param format 数据格式：csv 或 ndjson
+     * @param outputStream 输出流
+     * @return 导出的用户数
+     */
+    long exportUsers(String format, OutputStream outputStream);
+}
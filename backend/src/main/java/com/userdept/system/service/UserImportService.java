@@ -0,0 +1,20 @@
+package com.userdept.system.service;
+
+import com.userdept.system.vo.UserImportResultVO;
+
+import java.io.InputStream;
+
+/**
+ * 用户批量导入服务接口
+ */
+public interface UserImportService {
+
+    /**
+     * 流式导入用户，按块校验、去重、哈希密码并批量写入
+     *
+     * @param inputStream 请求体输入流（UTF-8）
+     * @param format 数据格式：csv（首行为表头）或 ndjson（每行一个 JSON 对象）
+     * @return 导入结果
+     */
+    UserImportResultVO importUsers(InputStream inputStream, String format);
+}
@@ -14,8 +14,17 @@ public interface UserService {
 
     Page<User> getUserPage(int page, int perPage, String query);
 
+    List<User> getUsersAfter(Long afterId, int limit, String query);
+
+    long countUsers(String query);
+
     User getUserByUsername(String username);
 
+    /**
+     * 按用户名查询用户（含密码哈希），直接查询数据库，供登录认证使用
+     */
+    User getUserWithCredentials(String username);
+
     User createUser(UserRequest request);
 
     User updateUser(Long id, UserRequest request);
@@ -24,6 +33,8 @@ public interface UserService {
 
     void updateUserStatus(Long id, boolean enabled);
 
+    void updatePasswordHash(String username, String hashedPassword);
+
     User getById(Long id);
 
     UserResponse convertToResponse(User user);
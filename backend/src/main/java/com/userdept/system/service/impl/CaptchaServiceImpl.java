@@ -2,6 +2,8 @@ package com.userdept.system.service.impl;
 
 import com.userdept.system.service.CaptchaService;
 import com.userdept.system.utils.CaptchaImageUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
@@ -14,6 +16,7 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class CaptchaServiceImpl implements CaptchaService {
     private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
     private static final String CAPTCHA_PREFIX = "captcha:";
 
     @Override
@@ -22,17 +25,17 @@ public class CaptchaServiceImpl implements CaptchaService {
         String code = String.format("%06d", new Random().nextInt(1000000));
         String uuid = UUID.randomUUID().toString().replaceAll("-", "");
         String key = CAPTCHA_PREFIX + uuid;
-        redisTemplate.opsForValue().set(key, code, expireSeconds, TimeUnit.SECONDS);
+        redisTimer("set").record(() -> redisTemplate.opsForValue().set(key, code, expireSeconds, TimeUnit.SECONDS));
         return uuid + ":" + code; // 返回uuid和验证码，实际生产只返回uuid
     }
 
     @Override
     public boolean verifyCaptcha(String uuid, String code, boolean removeIfSuccess) {
         String key = CAPTCHA_PREFIX + uuid;
-        String realCode = redisTemplate.opsForValue().get(key);
+        String realCode = redisTimer("get").record(() -> redisTemplate.opsForValue().get(key));
         if (realCode != null && realCode.equalsIgnoreCase(code)) {
             if (removeIfSuccess) {
-                redisTemplate.delete(key);
+                redisTimer("delete").record(() -> redisTemplate.delete(key));
             }
             return true;
         }
@@ -44,7 +47,17 @@ public class CaptchaServiceImpl implements CaptchaService {
         CaptchaImageUtil.CaptchaResult img = CaptchaImageUtil.createImage(width, height, length);
         String uuid = UUID.randomUUID().toString().replaceAll("-", "");
         String key = CAPTCHA_PREFIX + uuid;
-        redisTemplate.opsForValue().set(key, img.code, expireSeconds, TimeUnit.SECONDS);
+        redisTimer("set").record(() -> redisTemplate.opsForValue().set(key, img.code, expireSeconds, TimeUnit.SECONDS));
         return new CaptchaImageResult(uuid, img.base64);
     }
+
+    /**
+     * 验证码 Redis 操作耗时
+     */
+    private Timer redisTimer(String operation) {
+        return Timer.builder("captcha.redis.duration")
+                .description("验证码 Redis 操作耗时")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,161 @@
+package com.userdept.system.service.impl;
+
+import com.userdept.system.cache.CacheInvalidationBus;
+import com.userdept.system.mapper.DashboardMapper;
+import com.userdept.system.service.DashboardService;
+import com.userdept.system.utils.TransactionUtil;
+import com.userdept.system.vo.DashboardStatsVO;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 仪表盘统计服务实现类
+ * <p>
+ * 计数保存在内存中的不可变快照里：启动时通过一次聚合查询初始化，之后由用户、部门的写操作增量调整，
+ * 并通过 {@link CacheInvalidationBus} 把调整量广播给其他节点，定期与数据库对账以校正偏差
+ * （如直接修改数据库或丢失的广播消息带来的偏差）。
+ * <p>
+ * 写操作在事务内登记、事务结束后计入。对账期间本节点有已登记未计入的写操作时放弃本次替换：
+ * 这些写操作可能已提交并被查询计入，再计入调整量会重复计数。其他节点的写操作在查询与广播到达之间
+ * 的重复计数由下次对账校正。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardServiceImpl implements DashboardService {
+
+    private static final String CHANNEL = "dashboard.stats";
+
+    private final DashboardMapper dashboardMapper;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final AtomicReference<Stats> stats = new AtomicReference<>(new Stats(0, 0, 0));
+
+    /**
+     * 本节点已登记但尚未计入（事务未结束）的写操作数
+     */
+    private final AtomicInteger pendingAdjustments = new AtomicInteger();
+
+    /**
+     * 本节点累计登记的写操作数，对账据此发现查询期间开始的写操作
+     */
+    private final AtomicLong startedAdjustments = new AtomicLong();
+
+    private volatile boolean initialized;
+
+    /**
+     * 订阅其他节点的计数调整，消息的 keys 依次为用户数、启用用户数、部门数的调整量
+     */
+    @PostConstruct
+    public void init() {
+        invalidationBus.register(CHANNEL, (id, keys) -> {
+            if (keys.size() == 3) {
+                apply(Long.parseLong(keys.get(0)), Long.parseLong(keys.get(1)), Long.parseLong(keys.get(2)));
+            }
+        });
+    }
+
+    @Override
+    public DashboardStatsVO getStats() {
+        if (!initialized) {
+            reconcile();
+        }
+        Stats current = stats.get();
+        return new DashboardStatsVO(current.users(), current.departments(), current.activeUsers());
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${dashboard.stats.reconcile-interval:300000}",
+            fixedDelayString = "${dashboard.stats.reconcile-interval:300000}")
+    public void reconcile() {
+        // 先读取快照再查询，只有查询期间计数未被调整、也没有本节点的写操作进行中时才整体替换
+        long started = startedAdjustments.get();
+        Stats current = stats.get();
+        if (pendingAdjustments.get() > 0) {
+            log.debug("有未结束的写操作，计数留待下次对账校正");
+            return;
+        }
+        DashboardStatsVO row = dashboardMapper.selectStats();
+        Stats reconciled = new Stats(row.getUserCount(), row.getActiveUserCount(), row.getDepartmentCount());
+        if (startedAdjustments.get() != started || !stats.compareAndSet(current, reconciled)) {
+            log.debug("对账期间计数被调整，留待下次对账校正");
+            return;
+        }
+        long userDrift = current.users() - reconciled.users();
+        long departmentDrift = current.departments() - reconciled.departments();
+        long activeUserDrift = current.activeUsers() - reconciled.activeUsers();
+        if (initialized && (userDrift != 0 || departmentDrift != 0 || activeUserDrift != 0)) {
+            log.info("仪表盘计数已校正，偏差: 用户={}，部门={}，启用用户={}", userDrift, departmentDrift, activeUserDrift);
+        }
+        initialized = true;
+    }
+
+    @Override
+    public void onUserCreated(boolean active) {
+        adjust(1, active ? 1 : 0, 0);
+    }
+
+    @Override
+    public void onUserDeleted(boolean active) {
+        adjust(-1, active ? -1 : 0, 0);
+    }
+
+    @Override
+    public void onUserStatusChanged(boolean wasActive, boolean active) {
+        if (wasActive == active) {
+            return;
+        }
+        adjust(0, active ? 1 : -1, 0);
+    }
+
+    @Override
+    public void onDepartmentCreated() {
+        adjust(0, 0, 1);
+    }
+
+    @Override
+    public void onDepartmentsDeleted(int count) {
+        adjust(0, 0, -count);
+    }
+
+    /**
+     * 登记写操作，事务提交后调整本地计数并通知其他节点
+     */
+    private void adjust(long users, long activeUsers, long departments) {
+        pendingAdjustments.incrementAndGet();
+        startedAdjustments.incrementAndGet();
+        TransactionUtil.afterCompletion(committed -> {
+            try {
+                if (committed) {
+                    apply(users, activeUsers, departments);
+                    invalidationBus.publish(CHANNEL, null,
+                            List.of(String.valueOf(users), String.valueOf(activeUsers), String.valueOf(departments)));
+                }
+            } finally {
+                pendingAdjustments.decrementAndGet();
+            }
+        });
+    }
+
+    private void apply(long users, long activeUsers, long departments) {
+        stats.updateAndGet(current -> new Stats(current.users() + users,
+                current.activeUsers() + activeUsers, current.departments() + departments));
+    }
+
+    /**
+     * 计数快照，整体替换，读取方不会看到只更新了一部分的计数
+     */
+    private record Stats(long users, long activeUsers, long departments) {
+    }
+}
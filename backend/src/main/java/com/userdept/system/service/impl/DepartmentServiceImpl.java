@@ -4,14 +4,20 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.userdept.system.cache.DepartmentTreeCache;
+import com.userdept.system.cache.EntityCache;
+import com.userdept.system.cache.MembershipIndex;
 import com.userdept.system.dto.DepartmentDTO;
 import com.userdept.system.entity.Department;
 import com.userdept.system.entity.User;
 import com.userdept.system.entity.UserDepartment;
+import com.userdept.system.exception.ConflictException;
 import com.userdept.system.mapper.DepartmentMapper;
 import com.userdept.system.mapper.UserDepartmentMapper;
 import com.userdept.system.mapper.UserMapper;
+import com.userdept.system.service.DashboardService;
 import com.userdept.system.service.DepartmentService;
+import com.userdept.system.utils.DepartmentPathUtil;
 import com.userdept.system.vo.UserDepartmentVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,9 +29,11 @@ import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -39,57 +47,70 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
     private final DepartmentMapper departmentMapper;
     private final UserDepartmentMapper userDepartmentMapper;
     private final UserMapper userMapper;
+    private final DepartmentTreeCache departmentTreeCache;
+    private final EntityCache<Department> departmentCache;
+    private final MembershipIndex membershipIndex;
+    private final DashboardService dashboardService;
 
     @Override
     public Page<Department> getDepartmentPage(int page, int perPage, String search) {
-        LambdaQueryWrapper<Department> queryWrapper = Wrappers.lambdaQuery();
-        
         if (StringUtils.hasText(search)) {
-            queryWrapper.like(Department::getCode, search)
-                    .or()
-                    .like(Department::getName, search)
-                    .or()
-                    .like(Department::getDescription, search);
+            // 部门数据量小，直接在内存快照中搜索
+            List<Department> matched = departmentTreeCache.getSnapshot().search(search);
+            Page<Department> departmentPage = new Page<>(page, perPage, matched.size());
+            int from = (int) Math.min((long) Math.max(page - 1, 0) * perPage, matched.size());
+            int to = Math.min(from + perPage, matched.size());
+            departmentPage.setRecords(new ArrayList<>(matched.subList(from, to)));
+            return departmentPage;
         }
-        
+
+        LambdaQueryWrapper<Department> queryWrapper = Wrappers.lambdaQuery();
         queryWrapper.orderByDesc(Department::getId);
         
         return departmentMapper.selectPage(new Page<>(page, perPage), queryWrapper);
     }
 
+    @Override
+    public List<Department> getDepartmentsAfter(Long afterId, int limit, String search) {
+        if (StringUtils.hasText(search)) {
+            // 游标分页需保持按ID倒序
+            return departmentTreeCache.getSnapshot().search(search).stream()
+                    .filter(dept -> afterId == null || dept.getId() < afterId)
+                    .sorted(Comparator.comparing(Department::getId).reversed())
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+
+        LambdaQueryWrapper<Department> queryWrapper = Wrappers.lambdaQuery();
+        // 按主键定位（seek），不使用 OFFSET，也不执行 COUNT
+        queryWrapper.lt(afterId != null, Department::getId, afterId)
+                .orderByDesc(Department::getId);
+        // 由分页插件生成参数绑定的 LIMIT ?
+        return departmentMapper.selectPage(new Page<>(1, limit, false), queryWrapper).getRecords();
+    }
+
+    @Override
+    public long countDepartments(String search) {
+        if (StringUtils.hasText(search)) {
+            return departmentTreeCache.getSnapshot().search(search).size();
+        }
+        return departmentMapper.selectCount(null);
+    }
+
     @Override
     public List<Department> getDepartmentTree() {
-        List<Department> allDepartments = departmentMapper.selectList(null);
-        
-        // 创建部门代码到部门对象的映射
-        Map<String, Department> deptMap = new HashMap<>();
-        allDepartments.forEach(dept -> deptMap.put(dept.getCode(), dept));
-        
-        // 构建树形结构
-        List<Department> rootDepartments = new ArrayList<>();
-        allDepartments.forEach(dept -> {
-            if (!StringUtils.hasText(dept.getParentCode())) {
-                // 根部门
-                rootDepartments.add(dept);
-            } else {
-                // 子部门
-                Department parentDept = deptMap.get(dept.getParentCode());
-                if (parentDept != null) {
-                    if (parentDept.getChildren() == null) {
-                        parentDept.setChildren(new ArrayList<>());
-                    }
-                    parentDept.getChildren().add(dept);
-                }
-            }
-        });
-        
-        return rootDepartments;
+        return departmentTreeCache.getSnapshot().getTree();
+    }
+
+    @Override
+    public DepartmentTreeCache.Snapshot getDepartmentTreeSnapshot() {
+        return departmentTreeCache.getSnapshot();
     }
 
     @Override
     public Department getDepartmentByCode(String code) {
-        return departmentMapper.selectOne(Wrappers.<Department>lambdaQuery()
-                .eq(Department::getCode, code));
+        return departmentCache.getByKey(code, key -> departmentMapper.selectOne(Wrappers.<Department>lambdaQuery()
+                .eq(Department::getCode, key)));
     }
 
     @Override
@@ -101,10 +122,24 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
         if (exist != null) {
             throw new IllegalArgumentException("部门编码已存在，请更换编码");
         }
+        String parentPath = null;
+        if (StringUtils.hasText(departmentDTO.getParentCode())) {
+            // 加锁读取父部门，并发移动其祖先时等待移动完成，取到最新路径
+            List<Department> parents = departmentMapper.selectByCodesForUpdate(List.of(departmentDTO.getParentCode()));
+            if (parents.isEmpty()) {
+                throw new IllegalArgumentException("父部门不存在");
+            }
+            parentPath = parents.get(0).getPath();
+        }
+        String path = DepartmentPathUtil.childPath(parentPath, departmentDTO.getCode());
+        if (path.length() > DepartmentPathUtil.MAX_LENGTH) {
+            throw new IllegalArgumentException("部门层级过深");
+        }
         Department department = new Department();
         department.setCode(departmentDTO.getCode());
         department.setName(departmentDTO.getName());
         department.setParentCode(departmentDTO.getParentCode());
+        department.setPath(path);
         department.setDescription(departmentDTO.getDescription());
         department.setCreator("system"); // 在无状态认证中，创建者信息需要其他方式获取
         department.setModifier("system");
@@ -112,6 +147,10 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
         department.setUpdatedTime(LocalDateTime.now());
         
         departmentMapper.insert(department);
+        departmentTreeCache.put(department);
+        // 通知其他节点刷新部门树
+        departmentCache.invalidate(department.getId(), department.getCode());
+        dashboardService.onDepartmentCreated();
         
         return department;
     }
@@ -119,11 +158,18 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Department updateDepartment(Long deptId, DepartmentDTO departmentDTO) {
-        Department department = departmentMapper.selectById(deptId);
+        // 加锁读取，与并发的移动操作串行
+        Department department = departmentMapper.selectByIdForUpdate(deptId);
         if (department == null) {
             throw new IllegalArgumentException("部门不存在");
         }
 
+        // parentCode 为 null 时不修改父部门，为空字符串时移动为顶级部门
+        String newParentCode = departmentDTO.getParentCode();
+        boolean moved = newParentCode != null
+                && !newParentCode.equals(StringUtils.hasText(department.getParentCode()) ? department.getParentCode() : "");
+        String oldPath = moved ? moveDepartment(department, newParentCode) : null;
+
         department.setName(departmentDTO.getName());
         department.setParentCode(departmentDTO.getParentCode());
         department.setDescription(departmentDTO.getDescription());
@@ -137,24 +183,87 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
         departmentMapper.updateById(department);
 
         // 返回数据库中最新的完整 Department 对象
-        return departmentMapper.selectById(deptId);
+        Department updated = departmentMapper.selectById(deptId);
+        if (moved) {
+            // 下级部门的路径也已改变
+            departmentTreeCache.move(updated, oldPath);
+        } else {
+            departmentTreeCache.put(updated);
+        }
+        departmentCache.invalidate(deptId, updated.getCode());
+        return updated;
+    }
+
+    /**
+     * 移动部门：校验不会形成环，并用一条语句改写整棵子树的路径
+     * <p>
+     * 新父部门的祖先链（由其路径得到，长度为层级深度）在同一事务中加锁，
+     * 并发移动同一链上的部门时会串行执行，不会各自通过校验后共同形成环。
+     *
+     * @return 移动前的路径
+     */
+    private String moveDepartment(Department department, String newParentCode) {
+        String oldPath = StringUtils.hasText(department.getPath())
+                ? department.getPath() : DepartmentPathUtil.childPath(null, department.getCode());
+        String newPath;
+        if (newParentCode.isEmpty()) {
+            newPath = DepartmentPathUtil.childPath(null, department.getCode());
+        } else {
+            if (newParentCode.equals(department.getCode())) {
+                throw new IllegalArgumentException("不能将部门移动到自身或其下级部门下");
+            }
+            Department parent = departmentMapper.selectOne(Wrappers.<Department>lambdaQuery()
+                    .eq(Department::getCode, newParentCode));
+            if (parent == null) {
+                throw new IllegalArgumentException("父部门不存在");
+            }
+            List<String> ancestorCodes = DepartmentPathUtil.codes(parent.getPath());
+            Department lockedParent = departmentMapper.selectByCodesForUpdate(ancestorCodes).stream()
+                    .filter(dept -> dept.getCode().equals(newParentCode))
+                    .findFirst()
+                    .orElse(null);
+            if (lockedParent == null || !parent.getPath().equals(lockedParent.getPath())) {
+                throw new ConflictException("部门结构已被修改，请重试");
+            }
+            // 新父部门的路径以本部门路径开头，说明它是本部门自身或下级部门
+            if (lockedParent.getPath().startsWith(oldPath)) {
+                throw new IllegalArgumentException("不能将部门移动到自身或其下级部门下");
+            }
+            newPath = DepartmentPathUtil.childPath(lockedParent.getPath(), department.getCode());
+        }
+
+        String pattern = DepartmentPathUtil.subtreePattern(oldPath);
+        List<Department> subtree = departmentMapper.selectSubtreeForUpdate(pattern);
+        int deepest = subtree.stream().mapToInt(dept -> dept.getPath().length()).max().orElse(oldPath.length());
+        if (deepest - oldPath.length() + newPath.length() > DepartmentPathUtil.MAX_LENGTH) {
+            throw new IllegalArgumentException("部门层级过深");
+        }
+        departmentMapper.updateSubtreePath(oldPath, newPath, pattern);
+        department.setPath(newPath);
+        for (Department dept : subtree) {
+            departmentCache.invalidate(dept.getId(), dept.getCode());
+        }
+        log.info("部门[{}]已移动: {} -> {}，子树部门数: {}", department.getCode(), oldPath, newPath, subtree.size());
+        return oldPath;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public void deleteDepartment(Long deptId) {
-        Department department = departmentMapper.selectById(deptId);
+    public void deleteDepartment(Long deptId, boolean cascade) {
+        // 加锁读取，并发在其下新增子部门时等待删除完成
+        Department department = departmentMapper.selectByIdForUpdate(deptId);
         if (department == null) {
             throw new IllegalArgumentException("部门不存在");
         }
+        if (cascade && StringUtils.hasText(department.getPath())) {
+            deleteSubtree(department);
+            return;
+        }
         
         // 检查是否有子部门
-        Department childDept = departmentMapper.selectOne(Wrappers.<Department>lambdaQuery()
-                .eq(Department::getParentCode, department.getCode()));
-        
-        if (childDept != null) {
+        if (departmentMapper.existsChild(department.getCode())) {
             log.warn("部门[{}]存在子部门，无法删除", department.getCode());
-            throw new IllegalStateException("部门存在子部门，无法删除");
+            throw new IllegalArgumentException("部门存在子部门，无法删除（可使用级联删除）");
         }
         
         // 删除部门用户关联
@@ -163,25 +272,73 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
         
         // 删除部门
         departmentMapper.deleteById(deptId);
+        departmentTreeCache.remove(department.getCode());
+        departmentCache.invalidate(deptId, department.getCode());
+        membershipIndex.removeDepartment(department.getCode());
+        dashboardService.onDepartmentsDeleted(1);
+    }
+
+    /**
+     * 级联删除子树：按路径前缀用两条语句删除全部用户关联与部门
+     */
+    private void deleteSubtree(Department department) {
+        String pattern = DepartmentPathUtil.subtreePattern(department.getPath());
+        // 锁定子树，阻止并发在其中新增或移入部门
+        List<Department> subtree = departmentMapper.selectSubtreeForUpdate(pattern);
+        int memberships = departmentMapper.deleteSubtreeMemberships(pattern);
+        int deleted = departmentMapper.deleteSubtree(pattern);
+
+        List<String> codes = subtree.stream().map(Department::getCode).toList();
+        departmentTreeCache.removeAll(codes);
+        for (Department dept : subtree) {
+            departmentCache.invalidate(dept.getId(), dept.getCode());
+        }
+        membershipIndex.removeDepartments(codes);
+        dashboardService.onDepartmentsDeleted(deleted);
+        log.info("部门[{}]已级联删除，部门数: {}，用户关联数: {}", department.getCode(), deleted, memberships);
+    }
+
+    @Override
+    public List<Department> getAncestors(String code) {
+        Department department = getDepartmentByCode(code);
+        if (department == null) {
+            throw new IllegalArgumentException("部门不存在");
+        }
+        List<String> codes = DepartmentPathUtil.codes(department.getPath());
+        if (codes.size() <= 1) {
+            return List.of(department);
+        }
+        // 祖先编号来自路径，一次按唯一索引查询
+        Map<String, Department> byCode = departmentMapper.selectList(Wrappers.<Department>lambdaQuery()
+                        .in(Department::getCode, codes))
+                .stream().collect(Collectors.toMap(Department::getCode, dept -> dept));
+        List<Department> ancestors = new ArrayList<>(codes.size());
+        for (String ancestorCode : codes) {
+            Department ancestor = byCode.get(ancestorCode);
+            if (ancestor != null) {
+                ancestors.add(ancestor);
+            }
+        }
+        return ancestors;
     }
 
     @Override
     public List<User> getUsersInDepartment(String departmentCode) {
-        // 获取部门下的所有用户名
-        List<UserDepartment> userDepts = userDepartmentMapper.selectList(
-                Wrappers.<UserDepartment>lambdaQuery()
-                        .eq(UserDepartment::getDepartmentCode, departmentCode)
-        );
+        // 获取部门下的所有用户名（成员关系索引就绪时不访问数据库）
+        List<String> usernames;
+        if (membershipIndex.isReady()) {
+            usernames = membershipIndex.getUsernames(departmentCode);
+        } else {
+            usernames = userDepartmentMapper.selectList(
+                    Wrappers.<UserDepartment>lambdaQuery()
+                            .eq(UserDepartment::getDepartmentCode, departmentCode)
+            ).stream().map(UserDepartment::getUsername).collect(Collectors.toList());
+        }
         
-        if (userDepts.isEmpty()) {
+        if (usernames.isEmpty()) {
             return new ArrayList<>();
         }
         
-        // 提取用户名列表
-        List<String> usernames = userDepts.stream()
-                .map(UserDepartment::getUsername)
-                .collect(Collectors.toList());
-        
         // 查询用户详情
         return userMapper.selectList(Wrappers.<User>lambdaQuery()
                 .in(User::getUsername, usernames));
@@ -189,6 +346,19 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
 
     @Override
     public List<Department> getDepartmentsForUser(String username) {
+        if (membershipIndex.isReady()) {
+            // 部门编号来自成员关系索引，部门详情来自部门树快照，不访问数据库
+            DepartmentTreeCache.Snapshot snapshot = departmentTreeCache.getSnapshot();
+            List<Department> departments = new ArrayList<>();
+            for (String code : membershipIndex.getDepartmentCodes(username)) {
+                Department department = snapshot.get(code);
+                if (department != null) {
+                    departments.add(department);
+                }
+            }
+            return departments;
+        }
+
         // 获取用户关联的所有部门代码
         List<UserDepartment> userDepts = userDepartmentMapper.selectList(
                 Wrappers.<UserDepartment>lambdaQuery()
@@ -212,27 +382,19 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean assignUserToDepartment(String username, String departmentCode, String creator) {
-        // 检查关联是否已存在
-        UserDepartment existingRelation = userDepartmentMapper.selectOne(
-                Wrappers.<UserDepartment>lambdaQuery()
-                        .eq(UserDepartment::getUsername, username)
-                        .eq(UserDepartment::getDepartmentCode, departmentCode)
-        );
-        
-        if (existingRelation != null) {
-            return false;
-        }
-        
-        // 创建新关联
+        // 创建新关联，已存在时由唯一约束忽略，无需先查询
         UserDepartment userDept = new UserDepartment();
         userDept.setUsername(username);
         userDept.setDepartmentCode(departmentCode);
         userDept.setCreator(creator);
         userDept.setCreatedTime(LocalDateTime.now());
         
-        userDepartmentMapper.insert(userDept);
-        
-        return true;
+        userDepartmentMapper.insertIfAbsent(userDept);
+        boolean inserted = userDept.getId() != null;
+        if (inserted) {
+            membershipIndex.add(username, departmentCode, userDept.getCreatedTime());
+        }
+        return inserted;
     }
 
     @Override
@@ -243,6 +405,9 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
                         .eq(UserDepartment::getUsername, username)
                         .eq(UserDepartment::getDepartmentCode, departmentCode)
         );
+        if (deleted > 0) {
+            membershipIndex.remove(username, departmentCode);
+        }
         
         return deleted > 0;
     }
@@ -256,38 +421,69 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
     }
 
     @Override
-    public List<UserDepartmentVO> getUserDepartmentVOs(String departmentCode) {
-        List<UserDepartment> userDepts = userDepartmentMapper.selectList(
-                Wrappers.<UserDepartment>lambdaQuery()
-                        .eq(UserDepartment::getDepartmentCode, departmentCode)
-        );
-        if (userDepts.isEmpty()) {
+    public List<UserDepartmentVO> getUserDepartmentVOs(String departmentCode, boolean recursive) {
+        List<MembershipIndex.Member> members;
+        if (recursive) {
+            // 在部门树快照中先序遍历子树，一次取出全部下级部门
+            List<String> codes = departmentTreeCache.getSnapshot().getSubtreeCodes(departmentCode);
+            members = getMembers(codes.isEmpty() ? List.of(departmentCode) : codes);
+            // 同一用户属于多个下级部门时只保留先出现（层级最高）的一条
+            Set<String> seen = new HashSet<>();
+            members = members.stream().filter(member -> seen.add(member.username())).toList();
+        } else if (membershipIndex.isReady()) {
+            members = membershipIndex.getMembers(departmentCode);
+        } else {
+            members = getMembers(List.of(departmentCode));
+        }
+        if (members.isEmpty()) {
             return new ArrayList<>();
         }
-        List<String> usernames = userDepts.stream().map(UserDepartment::getUsername).toList();
+        List<String> usernames = members.stream().map(MembershipIndex.Member::username).toList();
         List<User> users = userMapper.selectList(Wrappers.<User>lambdaQuery().in(User::getUsername, usernames));
         // username -> User
         Map<String, User> userMap = users.stream().collect(Collectors.toMap(User::getUsername, u -> u));
         List<UserDepartmentVO> voList = new ArrayList<>();
-        for (UserDepartment ud : userDepts) {
-            User u = userMap.get(ud.getUsername());
+        for (MembershipIndex.Member member : members) {
+            User u = userMap.get(member.username());
             if (u != null) {
                 UserDepartmentVO vo = new UserDepartmentVO();
                 vo.setUsername(u.getUsername());
                 vo.setRealname(u.getRealname());
                 vo.setEmail(u.getEmail());
                 vo.setStatus(u.getStatus());
-                vo.setAddedTime(ud.getCreatedTime());
+                vo.setDepartmentCode(member.departmentCode());
+                vo.setAddedTime(member.addedTime());
                 voList.add(vo);
             }
         }
         return voList;
     }
 
+    /**
+     * 查询多个部门的成员，按部门顺序输出；成员关系索引未就绪时查询数据库
+     */
+    private List<MembershipIndex.Member> getMembers(List<String> departmentCodes) {
+        if (membershipIndex.isReady()) {
+            return membershipIndex.getMembers(departmentCodes);
+        }
+        Map<String, List<MembershipIndex.Member>> byDepartment = userDepartmentMapper.selectList(
+                Wrappers.<UserDepartment>lambdaQuery()
+                        .in(UserDepartment::getDepartmentCode, departmentCodes)
+                        .orderByAsc(UserDepartment::getId)
+        ).stream().collect(Collectors.groupingBy(UserDepartment::getDepartmentCode, Collectors.mapping(
+                ud -> new MembershipIndex.Member(ud.getUsername(), ud.getDepartmentCode(), ud.getCreatedTime()),
+                Collectors.toList())));
+        List<MembershipIndex.Member> members = new ArrayList<>();
+        for (String code : departmentCodes) {
+            members.addAll(byDepartment.getOrDefault(code, List.of()));
+        }
+        return members;
+    }
+
     @Override
     public Department getById(Long deptId) {
         if (deptId == null) return null;
-        return departmentMapper.selectById(deptId);
+        return departmentCache.getById(deptId, departmentMapper::selectById);
     }
 
     @Override
@@ -2,24 +2,29 @@ package com.userdept.system.service.impl;
 
 import com.userdept.system.entity.User;
 import com.userdept.system.service.UserService;
+import com.userdept.system.utils.PasswordUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 /**
  * Spring Security用户认证实现
+ * <p>
+ * 同时实现 UserDetailsPasswordService：登录成功且密码哈希强度低于当前配置时，
+ * 由 Spring Security 重新哈希并回写，实现哈希参数的平滑升级。
  */
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserService userService;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userService.getUserByUsername(username);
+        User user = userService.getUserWithCredentials(username);
         if (user == null) {
             throw new UsernameNotFoundException("用户不存在: " + username);
         }
@@ -31,4 +36,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         
         return user;
     }
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userService.updatePasswordHash(user.getUsername(), newPassword);
+        if (user instanceof User) {
+            User updated = (User) user;
+            updated.setPassword(newPassword);
+            updated.setSalt(PasswordUtil.extractSalt(newPassword));
+        }
+        return user;
+    }
 }
@@ -0,0 +1,125 @@
+package com.userdept.system.service.impl;
+
+import cn.hutool.core.text.csv.CsvWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.userdept.system.dto.UserResponse;
+import com.userdept.system.mapper.UserMapper;
+import com.userdept.system.service.UserExportService;
+import com.userdept.system.vo.UserExportVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 用户导出服务实现类
+ * <p>
+ * 按用户ID键集分批查询（部门编码在同一条 SQL 中左连接），合并同一用户的多行后逐行写入输出流。
+ * 每批查询单独借用并归还数据库连接，下载期间不占用连接；内存占用只与批大小有关，与用户总数无关。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserExportServiceImpl implements UserExportService {
+
+    private static final String[] CSV_HEADER = {
+            "id", "username", "realname", "email", "mobile", "sex", "enabled",
+            "departmentCodes", "createdTime", "updatedTime"
+    };
+
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+
+    @Value("${user.export.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    public long exportUsers(String format, OutputStream outputStream) {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        CsvWriter csvWriter = ndjson ? null : new CsvWriter(writer);
+
+        try {
+            if (csvWriter != null) {
+                csvWriter.writeHeaderLine(CSV_HEADER);
+            }
+            long afterId = 0;
+            List<UserExportVO> rows;
+            while (!(rows = userMapper.selectExportBatch(afterId, batchSize)).isEmpty()) {
+                int from = 0;
+                for (int i = 1; i <= rows.size(); i++) {
+                    if (i < rows.size() && rows.get(i).getId().equals(rows.get(from).getId())) {
+                        continue;
+                    }
+                    UserResponse response = toResponse(rows.subList(from, i));
+                    if (ndjson) {
+                        writer.write(objectMapper.writeValueAsString(response));
+                        writer.write('\n');
+                    } else {
+                        csvWriter.writeLine(toCsvLine(response));
+                    }
+                    count++;
+                    from = i;
+                }
+                afterId = rows.get(rows.size() - 1).getId();
+                writer.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("导出用户数据失败", e);
+        }
+
+        log.info("用户导出完成: 格式={}，数量={}，耗时={}ms", ndjson ? "ndjson" : "csv", count,
+                System.currentTimeMillis() - start);
+        return count;
+    }
+
+    /**
+     * 合并同一用户的导出行
+     */
+    private UserResponse toResponse(List<UserExportVO> rows) {
+        UserExportVO row = rows.get(0);
+        UserResponse response = new UserResponse();
+        BeanUtils.copyProperties(row, response);
+        response.setEnabled(row.getStatus() != null && row.getStatus() == 1);
+        List<String> departmentCodes = new ArrayList<>(rows.size());
+        for (UserExportVO departmentRow : rows) {
+            if (departmentRow.getDepartmentCode() != null) {
+                departmentCodes.add(departmentRow.getDepartmentCode());
+            }
+        }
+        response.setDepartmentCodes(departmentCodes);
+        return response;
+    }
+
+    /**
+     * 部门编码可能包含逗号等任意字符（除 /），以 JSON 数组写入单元格
+     */
+    private String[] toCsvLine(UserResponse response) throws IOException {
+        return new String[]{
+                Objects.toString(response.getId(), ""),
+                response.getUsername(),
+                response.getRealname(),
+                response.getEmail(),
+                response.getMobile(),
+                Objects.toString(response.getSex(), ""),
+                String.valueOf(response.getEnabled()),
+                objectMapper.writeValueAsString(response.getDepartmentCodes()),
+                Objects.toString(response.getCreatedTime(), ""),
+                Objects.toString(response.getUpdatedTime(), "")
+        };
+    }
+}
@@ -4,25 +4,36 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.userdept.system.cache.EntityCache;
+import com.userdept.system.cache.MembershipIndex;
+import com.userdept.system.cache.UserPrincipalCache;
 import com.userdept.system.dto.UserRequest;
 import com.userdept.system.dto.UserResponse;
 import com.userdept.system.entity.User;
 import com.userdept.system.entity.UserDepartment;
 import com.userdept.system.mapper.UserDepartmentMapper;
 import com.userdept.system.mapper.UserMapper;
+import com.userdept.system.search.UserSearchBackend;
+import com.userdept.system.service.DashboardService;
 import com.userdept.system.service.UserService;
 import com.userdept.system.utils.PasswordUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -35,18 +46,27 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
     private final UserMapper userMapper;
     private final UserDepartmentMapper userDepartmentMapper;
+    private final UserPrincipalCache userPrincipalCache;
+    private final EntityCache<User> userCache;
+    private final MembershipIndex membershipIndex;
+    private final ObjectProvider<UserSearchBackend> userSearchBackend;
+    private final DashboardService dashboardService;
+    private final PasswordEncoder passwordEncoder;
 
     @Override
     public Page<User> getUserPage(int page, int perPage, String query) {
-        LambdaQueryWrapper<User> queryWrapper = Wrappers.lambdaQuery();
-        
-        if (StringUtils.hasText(query)) {
-            queryWrapper.like(User::getUsername, query)
-                    .or()
-                    .like(User::getRealname, query)
-                    .or()
-                    .like(User::getMobile, query);
+        UserSearchBackend searchBackend = readySearchBackend(query);
+        if (searchBackend != null) {
+            // 通过搜索索引得到排序后的ID列表，再按页回表查询
+            List<Long> ids = searchBackend.search(query);
+            Page<User> userPage = new Page<>(page, perPage, ids.size());
+            int from = (int) Math.min((long) Math.max(page - 1, 0) * perPage, ids.size());
+            int to = Math.min(from + perPage, ids.size());
+            userPage.setRecords(selectUsersInOrder(ids.subList(from, to)));
+            return userPage;
         }
+
+        LambdaQueryWrapper<User> queryWrapper = buildQueryWrapper(query);
         
         queryWrapper.orderByDesc(User::getId);
         
@@ -56,8 +76,85 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         return userPage;
     }
 
+    @Override
+    public List<User> getUsersAfter(Long afterId, int limit, String query) {
+        UserSearchBackend searchBackend = readySearchBackend(query);
+        if (searchBackend != null) {
+            // 游标分页需保持按ID倒序
+            List<Long> ids = searchBackend.search(query).stream()
+                    .filter(id -> afterId == null || id < afterId)
+                    .sorted(Comparator.reverseOrder())
+                    .limit(limit)
+                    .collect(Collectors.toList());
+            return selectUsersInOrder(ids);
+        }
+
+        LambdaQueryWrapper<User> queryWrapper = buildQueryWrapper(query);
+        // 按主键定位（seek），不使用 OFFSET，也不执行 COUNT
+        queryWrapper.lt(afterId != null, User::getId, afterId)
+                .orderByDesc(User::getId);
+        // 由分页插件生成参数绑定的 LIMIT ?
+        return userMapper.selectPage(new Page<>(1, limit, false), queryWrapper).getRecords();
+    }
+
+    @Override
+    public long countUsers(String query) {
+        UserSearchBackend searchBackend = readySearchBackend(query);
+        if (searchBackend != null) {
+            return searchBackend.search(query).size();
+        }
+        return userMapper.selectCount(buildQueryWrapper(query));
+    }
+
+    /**
+     * 有查询关键词且搜索后端已就绪时返回搜索后端，否则返回 null（使用 LIKE 查询）
+     */
+    private UserSearchBackend readySearchBackend(String query) {
+        if (!StringUtils.hasText(query)) {
+            return null;
+        }
+        UserSearchBackend searchBackend = userSearchBackend.getIfAvailable();
+        return searchBackend != null && searchBackend.isReady() ? searchBackend : null;
+    }
+
+    /**
+     * 按给定ID顺序批量查询用户，已不存在的用户会被跳过
+     */
+    private List<User> selectUsersInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, User> userMap = userMapper.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+        return ids.stream()
+                .map(userMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private LambdaQueryWrapper<User> buildQueryWrapper(String query) {
+        LambdaQueryWrapper<User> queryWrapper = Wrappers.lambdaQuery();
+        if (StringUtils.hasText(query)) {
+            // 与搜索索引一致，忽略首尾空白
+            String keyword = query.trim();
+            queryWrapper.and(w -> w.like(User::getUsername, keyword)
+                    .or()
+                    .like(User::getRealname, keyword)
+                    .or()
+                    .like(User::getMobile, keyword));
+        }
+        return queryWrapper;
+    }
+
     @Override
     public User getUserByUsername(String username) {
+        return userCache.getByKey(username, key -> userMapper.selectOne(Wrappers.<User>lambdaQuery()
+                .eq(User::getUsername, key)));
+    }
+
+    @Override
+    public User getUserWithCredentials(String username) {
+        // 实体缓存不保存密码哈希
         return userMapper.selectOne(Wrappers.<User>lambdaQuery()
                 .eq(User::getUsername, username));
     }
@@ -73,9 +170,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         User user = new User();
         BeanUtils.copyProperties(request, user);
         
-        String salt = PasswordUtil.generateSalt();
-        user.setSalt(salt);
-        user.setPassword(PasswordUtil.hashPassword(request.getPassword(), salt));
+        String hashedPassword = passwordEncoder.encode(request.getPassword());
+        user.setSalt(PasswordUtil.extractSalt(hashedPassword));
+        user.setPassword(hashedPassword);
         
         user.setCreator("system");
         user.setModifier("system");
@@ -83,6 +180,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         user.setUpdatedTime(LocalDateTime.now());
         
         userMapper.insert(user);
+        userSearchBackend.ifAvailable(backend -> backend.index(user));
+        // 未显式设置状态时使用数据库默认值（启用）
+        dashboardService.onUserCreated(user.getStatus() == null || user.getStatus() == 1);
         
         // 处理用户部门关联
         if (StringUtils.hasText(request.getDepartmentCode())) {
@@ -97,6 +197,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             userDepartment.setCreator("system");
             userDepartment.setCreatedTime(LocalDateTime.now());
             userDepartmentMapper.insert(userDepartment);
+            membershipIndex.replaceUser(user.getUsername(), request.getDepartmentCode(),
+                    userDepartment.getCreatedTime());
         }
         
         return user;
@@ -109,13 +211,14 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (user == null) {
             throw new IllegalArgumentException("用户不存在");
         }
+        String originalUsername = user.getUsername();
 
         BeanUtils.copyProperties(request, user, "password"); // 排除密码字段的自动复制
 
         if (StringUtils.hasText(request.getPassword())) {
-            String salt = PasswordUtil.generateSalt();
-            user.setSalt(salt);
-            user.setPassword(PasswordUtil.hashPassword(request.getPassword(), salt));
+            String hashedPassword = passwordEncoder.encode(request.getPassword());
+            user.setSalt(PasswordUtil.extractSalt(hashedPassword));
+            user.setPassword(hashedPassword);
         }
 
         // 从上下文中获取当前用户
@@ -125,6 +228,10 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         user.setUpdatedTime(LocalDateTime.now());
 
         userMapper.updateById(user);
+        userPrincipalCache.invalidate(originalUsername);
+        userPrincipalCache.invalidate(user.getUsername());
+        userCache.invalidate(id, originalUsername, user.getUsername());
+        userSearchBackend.ifAvailable(backend -> backend.index(user));
 
         // 更新用户部门关联
         // 1. 删除用户现有的部门关联
@@ -132,14 +239,16 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 .eq(UserDepartment::getUsername, user.getUsername()));
 
         // 2. 添加新的部门关联
+        LocalDateTime addedTime = LocalDateTime.now();
         if (StringUtils.hasText(request.getDepartmentCode())) {
             UserDepartment userDepartment = new UserDepartment();
             userDepartment.setUsername(user.getUsername());
             userDepartment.setDepartmentCode(request.getDepartmentCode());
             userDepartment.setCreator(currentUsername);
-            userDepartment.setCreatedTime(LocalDateTime.now());
+            userDepartment.setCreatedTime(addedTime);
             userDepartmentMapper.insert(userDepartment);
         }
+        membershipIndex.replaceUser(user.getUsername(), request.getDepartmentCode(), addedTime);
 
         // 返回数据库中最新的完整 User 对象
         return userMapper.selectById(id);
@@ -157,6 +266,11 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 .eq(UserDepartment::getUsername, user.getUsername()));
         
         userMapper.deleteById(id);
+        membershipIndex.removeUser(user.getUsername());
+        userPrincipalCache.invalidate(user.getUsername());
+        userCache.invalidate(id, user.getUsername());
+        userSearchBackend.ifAvailable(backend -> backend.remove(id));
+        dashboardService.onUserDeleted(user.getStatus() != null && user.getStatus() == 1);
     }
 
     @Override
@@ -166,38 +280,72 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new IllegalArgumentException("用户不存在");
         }
         
+        boolean wasEnabled = user.getStatus() != null && user.getStatus() == 1;
         user.setStatus(enabled ? 1 : 0);
         user.setModifier("system");
         user.setUpdatedTime(LocalDateTime.now());
         
         userMapper.updateById(user);
+        userPrincipalCache.invalidate(user.getUsername());
+        userCache.invalidate(id, user.getUsername());
+        dashboardService.onUserStatusChanged(wasEnabled, enabled);
     }
 
     @Override
-    public UserResponse convertToResponse(User user) {
-        UserResponse response = new UserResponse();
-        BeanUtils.copyProperties(user, response);
-        response.setEnabled(user.getStatus() != null && user.getStatus() == 1);
+    public void updatePasswordHash(String username, String hashedPassword) {
+        userMapper.update(null, Wrappers.<User>lambdaUpdate()
+                .set(User::getPassword, hashedPassword)
+                .set(User::getSalt, PasswordUtil.extractSalt(hashedPassword))
+                .eq(User::getUsername, username));
+        userPrincipalCache.invalidate(username);
+        userCache.invalidateByKey(username);
+    }
 
+    @Override
+    public UserResponse convertToResponse(User user) {
         // 获取用户所属的部门编码列表
-        List<String> departmentCodes = userDepartmentMapper.selectList(
-                Wrappers.<UserDepartment>lambdaQuery()
-                        .eq(UserDepartment::getUsername, user.getUsername())
-        ).stream().map(UserDepartment::getDepartmentCode).collect(Collectors.toList());
-        response.setDepartmentCodes(departmentCodes);
-
-        return response;
+        return toResponse(user, getUserDepartmentCodes(user.getUsername()));
     }
 
     @Override
     public List<UserResponse> convertToResponseList(List<User> users) {
-        return users.stream()
-                .map(this::convertToResponse)
+        if (users == null || users.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 成员关系索引就绪时直接读取，否则一次 IN 查询批量加载整页用户的部门关联，避免逐个用户查询（N+1）
+        List<String> usernames = users.stream()
+                .map(User::getUsername)
+                .distinct()
                 .collect(Collectors.toList());
+        Map<String, List<String>> departmentCodesMap = membershipIndex.isReady()
+                ? membershipIndex.getDepartmentCodes(usernames)
+                : userDepartmentMapper.selectList(
+                        Wrappers.<UserDepartment>lambdaQuery()
+                                .in(UserDepartment::getUsername, usernames)
+                ).stream().collect(Collectors.groupingBy(UserDepartment::getUsername,
+                        Collectors.mapping(UserDepartment::getDepartmentCode, Collectors.toList())));
+
+        List<UserResponse> responses = new ArrayList<>(users.size());
+        for (User user : users) {
+            responses.add(toResponse(user, departmentCodesMap.getOrDefault(user.getUsername(), new ArrayList<>())));
+        }
+        return responses;
+    }
+
+    private UserResponse toResponse(User user, List<String> departmentCodes) {
+        UserResponse response = new UserResponse();
+        BeanUtils.copyProperties(user, response);
+        response.setEnabled(user.getStatus() != null && user.getStatus() == 1);
+        response.setDepartmentCodes(departmentCodes);
+        return response;
     }
 
     @Override
     public List<String> getUserDepartmentCodes(String username) {
+        if (membershipIndex.isReady()) {
+            return membershipIndex.getDepartmentCodes(username);
+        }
         return userDepartmentMapper.selectList(
                 Wrappers.<UserDepartment>lambdaQuery()
                         .eq(UserDepartment::getUsername, username)
@@ -206,7 +354,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
     @Override
     public User getById(Long id) {
-        return userMapper.selectById(id);
+        return userCache.getById(id, userMapper::selectById);
     }
 
     @Override
@@ -0,0 +1,42 @@
+package com.userdept.system.utils;
+
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 分页游标工具类，游标为对最后一条记录 ID 的不透明编码
+ */
+public class CursorUtil {
+
+    private static final String PREFIX = "id:";
+
+    /**
+     * 将记录 ID 编码为游标
+     */
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，空游标表示从第一页开始，返回 null
+     *
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static Long decode(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.userdept.system.utils;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 部门祖先路径工具类，路径形如 /root/grade3/class2/（含自身，以 / 开头和结尾）
+ */
+public class DepartmentPathUtil {
+
+    /**
+     * 路径最大长度，与 department.path 列宽一致
+     */
+    public static final int MAX_LENGTH = 1000;
+
+    /**
+     * 计算部门路径，父路径为空时为顶级部门
+     */
+    public static String childPath(String parentPath, String code) {
+        return (StringUtils.hasText(parentPath) ? parentPath : "/") + code + "/";
+    }
+
+    /**
+     * 路径中的部门编号，从顶级部门到自身
+     */
+    public static List<String> codes(String path) {
+        List<String> codes = new ArrayList<>();
+        if (!StringUtils.hasText(path)) {
+            return codes;
+        }
+        int start = 1;
+        for (int end = path.indexOf('/', start); end > 0; end = path.indexOf('/', start)) {
+            codes.add(path.substring(start, end));
+            start = end + 1;
+        }
+        return codes;
+    }
+
+    /**
+     * 子树（含自身）的 LIKE 模式，转义路径中的通配符
+     */
+    public static String subtreePattern(String path) {
+        StringBuilder sb = new StringBuilder(path.length() + 2);
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.append('%').toString();
+    }
+}
@@ -1,35 +1,108 @@
 package com.userdept.system.utils;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.crypto.digest.DigestUtil;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private Key getSigningKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${jwt.verified-cache.capacity:10000}")
+    private int verifiedCacheCapacity;
+
+    /**
+     * 签名密钥与解析器均为不可变且线程安全的对象，初始化一次后复用
+     */
+    private Key signingKey;
+
+    private JwtParser jwtParser;
+
+    /**
+     * 最近校验通过的 Token 摘要 -> 校验结果，条目过期时间不超过 Token 自身的过期时间
+     */
+    private LRUCache<String, VerifiedToken> verifiedTokenCache;
+
+    /**
+     * 签发与完整解析（验签）耗时，命中已校验缓存的请求不计入
+     */
+    private Timer generateTimer;
+
+    private Timer parseTimer;
+
+    @PostConstruct
+    public void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verifiedTokenCache = CacheUtil.newLRUCache(verifiedCacheCapacity);
+        this.generateTimer = Timer.builder("jwt.duration")
+                .description("JWT 签发/解析耗时")
+                .tag("operation", "generate")
+                .register(meterRegistry);
+        this.parseTimer = Timer.builder("jwt.duration")
+                .description("JWT 签发/解析耗时")
+                .tag("operation", "parse")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 解析并校验 Token（签名、格式、过期时间），每个 Token 只解析一次
+     *
+     * @param token JWT 字符串
+     * @return 校验通过的 Token 信息
+     * @throws io.jsonwebtoken.JwtException Token 无效或已过期
+     */
+    public VerifiedToken verifyToken(String token) {
+        String digest = DigestUtil.sha256Hex(token);
+        VerifiedToken cached = verifiedTokenCache.get(digest);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+
+        Claims claims = extractAllClaims(token);
+        VerifiedToken verified = new VerifiedToken(
+                claims.getSubject(),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant()
+        );
+        if (verified.expiration() != null) {
+            long ttl = verified.expiration().toEpochMilli() - System.currentTimeMillis();
+            if (ttl > 0) {
+                verifiedTokenCache.put(digest, verified, ttl);
+            }
+        }
+        return verified;
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verifyToken(token).username();
     }
 
     public Date extractExpiration(String token) {
@@ -42,11 +115,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token).getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parseTimer.record(() -> jwtParser.parseClaimsJws(token).getBody());
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -55,17 +124,39 @@ public class JwtUtil {
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
-        return Jwts.builder()
+        return generateTimer.record(() -> Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration * 1000))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact());
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(verifyToken(token), userDetails);
+    }
+
+    /**
+     * 使用已校验的 Token 信息判断其是否属于指定用户且未过期，不再重复解析
+     */
+    public Boolean validateToken(VerifiedToken verifiedToken, UserDetails userDetails) {
+        return verifiedToken.username() != null
+                && verifiedToken.username().equals(userDetails.getUsername())
+                && !verifiedToken.isExpired();
+    }
+
+    /**
+     * 校验通过的 Token 信息（不可变）
+     *
+     * @param username 用户名（subject）
+     * @param issuedAt 签发时间
+     * @param expiration 过期时间
+     */
+    public record VerifiedToken(String username, Instant issuedAt, Instant expiration) {
+
+        public boolean isExpired() {
+            return expiration != null && expiration.isBefore(Instant.now());
+        }
     }
 }
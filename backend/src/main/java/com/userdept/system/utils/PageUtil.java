@@ -0,0 +1,24 @@
+package com.userdept.system.utils;
+
+/**
+ * 分页参数工具类
+ */
+public class PageUtil {
+
+    /**
+     * 每页最大数量
+     */
+    public static final int MAX_PER_PAGE = 100;
+
+    /**
+     * 校验每页数量，超过上限时按上限处理
+     *
+     * @throws IllegalArgumentException 每页数量小于 1
+     */
+    public static int perPage(int perPage) {
+        if (perPage < 1) {
+            throw new IllegalArgumentException("每页数量必须大于0");
+        }
+        return Math.min(perPage, MAX_PER_PAGE);
+    }
+}
@@ -14,6 +14,16 @@ public class PasswordUtil {
         return BCrypt.gensalt();
     }
     
+    /**
+     * 从 BCrypt 哈希中提取盐值（哈希前 29 个字符为版本、强度与盐）
+     * 
+     * @param hashedPassword 哈希后的密码
+     * @return 盐值
+     */
+    public static String extractSalt(String hashedPassword) {
+        return hashedPassword.substring(0, 29);
+    }
+    
     /**
      * 对密码进行哈希处理
      * 
@@ -0,0 +1,35 @@
+package com.userdept.system.vo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页数据对象
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageVO<T> {
+    /**
+     * 总记录数，仅在请求时统计
+     */
+    private Long total;
+
+    /**
+     * 每页记录数
+     */
+    private Integer perPage;
+
+    /**
+     * 下一页游标，没有下一页时为空
+     */
+    private String nextCursor;
+
+    /**
+     * 数据列表
+     */
+    private List<T> list;
+}
@@ -0,0 +1,28 @@
+package com.userdept.system.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 仪表盘统计数据对象
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardStatsVO {
+    /**
+     * 用户总数
+     */
+    private Long userCount;
+
+    /**
+     * 部门总数
+     */
+    private Long departmentCount;
+
+    /**
+     * 启用用户数
+     */
+    private Long activeUserCount;
+}
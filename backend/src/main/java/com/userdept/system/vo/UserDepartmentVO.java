@@ -9,5 +9,6 @@ public class UserDepartmentVO {
     private String realname;
     private String email;
     private Integer status;
+    private String departmentCode;
     private LocalDateTime addedTime;
 }
@@ -0,0 +1,27 @@
+package com.userdept.system.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户导出行（与用户部门关联左连接，每个部门一行，没有部门的用户一行）
+ */
+@Data
+public class UserExportVO {
+    private Long id;
+    private String username;
+    private String realname;
+    private String email;
+    private String mobile;
+    private Integer sex;
+    private Integer status;
+
+    /**
+     * 部门编码，没有部门时为空
+     */
+    private String departmentCode;
+
+    private LocalDateTime createdTime;
+    private LocalDateTime updatedTime;
+}
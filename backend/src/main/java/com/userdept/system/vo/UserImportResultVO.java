@@ -0,0 +1,66 @@
+package com.userdept.system.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户批量导入结果
+ */
+@Data
+public class UserImportResultVO {
+    /**
+     * 读取的数据行数
+     */
+    private long total;
+
+    /**
+     * 导入成功行数
+     */
+    private long success;
+
+    /**
+     * 导入失败行数
+     */
+    private long failed;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long elapsedMs;
+
+    /**
+     * 吞吐量（行/秒）
+     */
+    private double rowsPerSecond;
+
+    /**
+     * 失败明细（最多返回配置的条数）
+     */
+    private List<RowError> errors = new ArrayList<>();
+
+    /**
+     * 失败明细是否被截断
+     */
+    private boolean errorsTruncated;
+
+    /**
+     * 单行导入失败信息
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        /**
+         * 行号：从 1 开始的物理行号（CSV 含表头行，跨行的带引号字段取记录起始行）
+         */
+        private long line;
+
+        private String username;
+
+        private String message;
+    }
+}
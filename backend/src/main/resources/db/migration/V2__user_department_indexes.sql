@@ -0,0 +1,11 @@
+-- 清理重复的用户部门关联，保留最早的一条，以便添加唯一约束
+DELETE ud1 FROM `user_department` ud1
+    JOIN `user_department` ud2
+        ON ud1.`username` = ud2.`username`
+        AND ud1.`department_code` = ud2.`department_code`
+        AND ud1.`id` > ud2.`id`;
+
+-- 按用户名查询（getUserDepartmentCodes、convertToResponse）走唯一索引，同时保证关联不重复
+ALTER TABLE `user_department`
+    ADD UNIQUE KEY `uk_username_department_code` (`username`, `department_code`),
+    ADD KEY `idx_department_code_username` (`department_code`, `username`);
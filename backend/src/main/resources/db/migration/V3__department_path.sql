@@ -0,0 +1,101 @@
+-- 路径以 / 分隔部门编号，编号中不能含有 /；已有此类编号时迁移失败（违反 chk_department_code_no_slash），
+-- 需先手动修改这些部门编号（同时修改子部门的 parent_code 与 user_department.department_code）后重新执行
+ALTER TABLE `department`
+    ADD CONSTRAINT `chk_department_code_no_slash` CHECK (`code` NOT LIKE '%/%');
+
+-- 部门祖先路径（含自身），如 /root/grade3/class2/，用于环检测与祖先、子树查询
+ALTER TABLE `department`
+    ADD COLUMN `path` VARCHAR(1000) NOT NULL DEFAULT '' COMMENT '祖先路径（含自身），如 /root/grade3/class2/' AFTER `parent_code`;
+
+-- 父部门不存在的部门（此前在部门树中不可见）提升为顶级部门，其子部门保持不变
+UPDATE `department` d
+    LEFT JOIN `department` p ON p.`code` = d.`parent_code`
+SET d.`parent_code` = ''
+WHERE d.`parent_code` <> '' AND p.`id` IS NULL;
+
+-- 递归层数：计算路径的层数为部门层级深度，沿父部门向上走的层数不超过环长加上挂在环上的深度。
+-- 路径长度（1000）把层级深度限制在 500 以内，但已有数据可能更深或含更长的环；MySQL 默认
+-- cte_max_recursion_depth 为 1000，超出时迁移以 "Recursive query aborted" 失败，因此各递归语句通过
+-- SET_VAR 提示仅在该语句内调高限制，层级过深的数据随后因路径超长而失败（需先调整部门层级）。
+-- MariaDB 把提示视为注释，其对应的 max_recursive_iterations 默认不限制
+
+-- 从尚未计算路径的顶级部门开始递归计算路径
+CREATE TEMPORARY TABLE `tmp_department_path` (
+    `code` VARCHAR(32) NOT NULL PRIMARY KEY,
+    `path` VARCHAR(1000) NOT NULL
+);
+
+INSERT /*+ SET_VAR(cte_max_recursion_depth = 100000) */ INTO `tmp_department_path` (`code`, `path`)
+WITH RECURSIVE `tree` (`code`, `path`) AS (
+    SELECT `code`, CAST(CONCAT('/', `code`, '/') AS CHAR(1000))
+    FROM `department`
+    WHERE `parent_code` = '' AND `path` = ''
+    UNION ALL
+    SELECT c.`code`, CONCAT(t.`path`, c.`code`, '/')
+    FROM `department` c
+        JOIN `tree` t ON c.`parent_code` = t.`code`
+)
+SELECT `code`, `path` FROM `tree`;
+
+UPDATE `department` d
+    JOIN `tmp_department_path` t ON t.`code` = d.`code`
+SET d.`path` = t.`path`;
+
+-- 仍没有路径的部门从顶级部门不可达：处于环中，或其祖先处于环中。
+-- 从每个这样的部门沿父部门向上走，直到遇到走过的部门；回到起点的部门在环中
+CREATE TEMPORARY TABLE `tmp_department_walk` (
+    `start` VARCHAR(32) NOT NULL,
+    `code` VARCHAR(32) NOT NULL,
+    `parent_code` VARCHAR(32) NOT NULL
+);
+
+INSERT /*+ SET_VAR(cte_max_recursion_depth = 100000) */ INTO `tmp_department_walk` (`start`, `code`, `parent_code`)
+WITH RECURSIVE `walk` (`start`, `code`, `parent_code`, `visited`) AS (
+    SELECT `code`, `code`, `parent_code`, CAST(CONCAT('/', `code`, '/') AS CHAR(10000))
+    FROM `department`
+    WHERE `path` = ''
+    UNION ALL
+    SELECT w.`start`, d.`code`, d.`parent_code`, CONCAT(w.`visited`, d.`code`, '/')
+    FROM `walk` w
+        JOIN `department` d ON d.`code` = w.`parent_code`
+    WHERE LOCATE(CONCAT('/', d.`code`, '/'), w.`visited`) = 0
+)
+SELECT `start`, `code`, `parent_code` FROM `walk`;
+
+-- 每个环只在编号最小的部门处断开（从环中部门出发恰好走过整个环），该部门提升为顶级部门，
+-- 环中其他部门及挂在环上的子树保持原有父部门
+UPDATE `department` d
+    JOIN (
+        SELECT `start`
+        FROM `tmp_department_walk`
+        GROUP BY `start`
+        HAVING SUM(`parent_code` = `start`) > 0 AND MIN(`code`) = `start`
+    ) c ON c.`start` = d.`code`
+SET d.`parent_code` = '';
+
+DROP TEMPORARY TABLE `tmp_department_walk`;
+
+-- 从断开处提升的顶级部门重新计算路径
+DELETE FROM `tmp_department_path`;
+
+INSERT /*+ SET_VAR(cte_max_recursion_depth = 100000) */ INTO `tmp_department_path` (`code`, `path`)
+WITH RECURSIVE `tree` (`code`, `path`) AS (
+    SELECT `code`, CAST(CONCAT('/', `code`, '/') AS CHAR(1000))
+    FROM `department`
+    WHERE `parent_code` = '' AND `path` = ''
+    UNION ALL
+    SELECT c.`code`, CONCAT(t.`path`, c.`code`, '/')
+    FROM `department` c
+        JOIN `tree` t ON c.`parent_code` = t.`code`
+)
+SELECT `code`, `path` FROM `tree`;
+
+UPDATE `department` d
+    JOIN `tmp_department_path` t ON t.`code` = d.`code`
+SET d.`path` = t.`path`;
+
+DROP TEMPORARY TABLE `tmp_department_path`;
+
+-- 子树查询（path LIKE '/a/b/%'）走前缀索引范围扫描
+ALTER TABLE `department`
+    ADD KEY `idx_path` (`path`);
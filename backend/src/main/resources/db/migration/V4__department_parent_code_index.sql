@@ -0,0 +1,3 @@
+-- 子部门存在性检查（deleteDepartment）与按父部门查询子部门走索引
+ALTER TABLE `department`
+    ADD KEY `idx_parent_code` (`parent_code`);
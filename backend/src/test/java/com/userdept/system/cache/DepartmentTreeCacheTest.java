@@ -0,0 +1,249 @@
+package com.userdept.system.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.userdept.system.entity.Department;
+import com.userdept.system.mapper.DepartmentMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DepartmentTreeCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    /**
+     * 模拟的 department 表
+     */
+    private List<Department> table;
+
+    @BeforeEach
+    void setUp() {
+        table = new ArrayList<>();
+        table.add(department(1, "root", null));
+        table.add(department(2, "grade1", "root"));
+        table.add(department(3, "grade2", "root"));
+        table.add(department(4, "class1", "grade1"));
+        table.add(department(5, "class2", "grade1"));
+    }
+
+    @Test
+    void discardsReloadThatRacesWithPatch() {
+        AtomicInteger loads = new AtomicInteger();
+        DepartmentTreeCache[] holder = new DepartmentTreeCache[1];
+        DepartmentTreeCache cache = new DepartmentTreeCache(mapper(() -> {
+            List<Department> rows = copies(table);
+            if (loads.incrementAndGet() == 1) {
+                // 查询返回后、快照安装前，另一个请求提交了新部门
+                Department created = department(6, "class3", "grade2");
+                table.add(created);
+                holder[0].put(created);
+            }
+            return rows;
+        }), objectMapper);
+        holder[0] = cache;
+
+        DepartmentTreeCache.Snapshot snapshot = cache.getSnapshot();
+
+        assertThat(loads).hasValue(2);
+        assertThat(snapshot.get("class3")).isNotNull();
+        assertThat(cache.getSnapshot()).isSameAs(snapshot);
+    }
+
+    @Test
+    void discardsReloadThatRacesWithInvalidate() {
+        AtomicInteger loads = new AtomicInteger();
+        DepartmentTreeCache[] holder = new DepartmentTreeCache[1];
+        DepartmentTreeCache cache = new DepartmentTreeCache(mapper(() -> {
+            List<Department> rows = copies(table);
+            if (loads.incrementAndGet() == 1) {
+                table.get(1).setName("一年级（改）");
+                holder[0].invalidate();
+            }
+            return rows;
+        }), objectMapper);
+        holder[0] = cache;
+
+        assertThat(cache.getSnapshot().get("grade1").getName()).isEqualTo("一年级（改）");
+    }
+
+    @Test
+    void patchedSnapshotMatchesFullReload() {
+        DepartmentTreeCache cache = cacheOverTable();
+        cache.getSnapshot();
+
+        // 随机新增、改名、移动、删除叶子部门，覆盖增量表合并
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            int op = random.nextInt(4);
+            if (op == 0 || table.size() < 3) {
+                Department parent = table.get(random.nextInt(table.size()));
+                Department created = department(100 + i, "d" + i, parent.getCode());
+                table.add(created);
+                cache.put(created);
+            } else if (op == 1) {
+                Department dept = table.get(random.nextInt(table.size()));
+                dept.setName("改名" + i);
+                cache.put(dept);
+            } else {
+                Department leaf = table.get(1 + random.nextInt(table.size() - 1));
+                if (table.stream().anyMatch(d -> leaf.getCode().equals(d.getParentCode()))) {
+                    continue;
+                }
+                if (op == 2) {
+                    table.remove(leaf);
+                    cache.remove(leaf.getCode());
+                } else {
+                    List<Department> candidates = table.stream().filter(d -> d != leaf).toList();
+                    leaf.setParentCode(candidates.get(random.nextInt(candidates.size())).getCode());
+                    cache.put(leaf);
+                }
+            }
+        }
+
+        DepartmentTreeCache.Snapshot patched = cache.getSnapshot();
+        DepartmentTreeCache.Snapshot reloaded = cacheOverTable().getSnapshot();
+        assertThat(patched.size()).isEqualTo(table.size());
+        assertThat(patched.getEtag()).isEqualTo(reloaded.getEtag());
+        assertThat(patched.getSubtreeCodes("root")).isEqualTo(reloaded.getSubtreeCodes("root"));
+    }
+
+    @Test
+    void movesDepartmentUnderNewParent() {
+        DepartmentTreeCache cache = cacheOverTable();
+        DepartmentTreeCache.Snapshot before = cache.getSnapshot();
+
+        Department moved = copies(table).get(1);
+        moved.setParentCode("grade2");
+        cache.put(moved);
+
+        DepartmentTreeCache.Snapshot after = cache.getSnapshot();
+        assertThat(after.getSubtreeCodes("grade2")).containsExactly("grade2", "grade1", "class1", "class2");
+        assertThat(after.getSubtreeCodes("root")).containsExactly("root", "grade2", "grade1", "class1", "class2");
+        assertThat(after.getEtag()).isNotEqualTo(before.getEtag());
+        // 旧快照不受影响
+        assertThat(before.getSubtreeCodes("grade2")).containsExactly("grade2");
+    }
+
+    @Test
+    void moveRewritesSubtreePaths() {
+        assignPaths();
+        DepartmentTreeCache cache = cacheOverTable();
+        cache.getSnapshot();
+
+        Department moved = table.get(1);
+        moved.setParentCode("grade2");
+        assignPaths();
+        cache.move(copies(table).get(1), "/root/grade1/");
+
+        DepartmentTreeCache.Snapshot patched = cache.getSnapshot();
+        assertThat(patched.get("grade1").getPath()).isEqualTo("/root/grade2/grade1/");
+        assertThat(patched.get("class2").getPath()).isEqualTo("/root/grade2/grade1/class2/");
+        assertThat(patched.get("grade2").getPath()).isEqualTo("/root/grade2/");
+        assertThat(patched.getEtag()).isEqualTo(cacheOverTable().getSnapshot().getEtag());
+    }
+
+    @Test
+    void removesWholeSubtree() {
+        DepartmentTreeCache cache = cacheOverTable();
+        DepartmentTreeCache.Snapshot before = cache.getSnapshot();
+
+        List<String> subtree = before.getSubtreeCodes("grade1");
+        table.removeIf(dept -> subtree.contains(dept.getCode()));
+        cache.removeAll(subtree);
+
+        DepartmentTreeCache.Snapshot patched = cache.getSnapshot();
+        assertThat(patched.size()).isEqualTo(2);
+        assertThat(patched.get("class1")).isNull();
+        assertThat(patched.search("class")).isEmpty();
+        assertThat(patched.getEtag()).isEqualTo(cacheOverTable().getSnapshot().getEtag());
+    }
+
+    @Test
+    void excludesDepartmentsOutsideTheTree() {
+        table.add(department(6, "orphan", "missing"));
+        table.add(department(7, "loopA", "loopB"));
+        table.add(department(8, "loopB", "loopA"));
+        DepartmentTreeCache.Snapshot snapshot = cacheOverTable().getSnapshot();
+
+        assertThat(snapshot.getSubtreeCodes("orphan")).isEmpty();
+        assertThat(snapshot.getSubtreeCodes("loopA")).isEmpty();
+        assertThat(snapshot.getTree()).hasSize(1);
+        assertThat(snapshot.get("orphan")).isNotNull();
+    }
+
+    @Test
+    void returnsCopies() {
+        DepartmentTreeCache.Snapshot snapshot = cacheOverTable().getSnapshot();
+        String etag = snapshot.getEtag();
+
+        snapshot.getTree().get(0).setName("篡改");
+        snapshot.getTree().get(0).getChildren().get(0).setCode("篡改");
+        snapshot.search("grade1").get(0).setName("篡改");
+        snapshot.get("class1").setName("篡改");
+
+        assertThat(snapshot.getTree().get(0).getName()).isEqualTo("部门root");
+        assertThat(snapshot.getTree().get(0).getChildren().get(0).getCode()).isEqualTo("grade1");
+        assertThat(snapshot.search("grade1").get(0).getName()).isEqualTo("部门grade1");
+        assertThat(snapshot.get("class1").getName()).isEqualTo("部门class1");
+        assertThat(snapshot.getEtag()).isEqualTo(etag);
+    }
+
+    /**
+     * 按父部门计算 table 中各部门的路径
+     */
+    private void assignPaths() {
+        for (Department dept : table) {
+            String path = dept.getCode() + "/";
+            for (Department node = dept; node.getParentCode() != null; ) {
+                String parentCode = node.getParentCode();
+                node = table.stream().filter(d -> d.getCode().equals(parentCode)).findFirst().orElseThrow();
+                path = node.getCode() + "/" + path;
+            }
+            dept.setPath("/" + path);
+        }
+    }
+
+    private DepartmentTreeCache cacheOverTable() {
+        return new DepartmentTreeCache(mapper(() -> copies(table)), objectMapper);
+    }
+
+    private static DepartmentMapper mapper(Supplier<List<Department>> rows) {
+        return (DepartmentMapper) Proxy.newProxyInstance(DepartmentMapper.class.getClassLoader(),
+                new Class<?>[]{DepartmentMapper.class}, (proxy, method, args) -> {
+                    if ("selectList".equals(method.getName())) {
+                        return rows.get();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static List<Department> copies(List<Department> departments) {
+        List<Department> copies = new ArrayList<>(departments.size());
+        for (Department dept : departments) {
+            Department copy = department(dept.getId(), dept.getCode(), dept.getParentCode());
+            copy.setName(dept.getName());
+            copy.setPath(dept.getPath());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private static Department department(long id, String code, String parentCode) {
+        Department dept = new Department();
+        dept.setId(id);
+        dept.setCode(code);
+        dept.setParentCode(parentCode);
+        dept.setName("部门" + code);
+        dept.setDescription("");
+        return dept;
+    }
+}
@@ -0,0 +1,197 @@
+package com.userdept.system.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.userdept.system.config.EntityCacheConfig;
+import com.userdept.system.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 实体缓存与内嵌 Redis 的集成测试，每个 EntityCache 实例模拟一个后端节点
+ */
+class EntityCacheRedisTest {
+
+    private static RedisServer redisServer;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    /**
+     * 模拟的 user 表
+     */
+    private final Map<Long, User> table = new ConcurrentHashMap<>();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final List<RedisMessageListenerContainer> containers = new ArrayList<>();
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        table.put(1L, user(1L, "alice", "Alice"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (RedisMessageListenerContainer container : containers) {
+            container.destroy();
+        }
+    }
+
+    @Test
+    void sharesEntriesAcrossNodesWithoutCredentials() {
+        EntityCache<User> nodeA = node(true);
+        EntityCache<User> nodeB = node(true);
+
+        User loaded = nodeA.getById(1L, this::select);
+        User shared = nodeB.getByKey("alice", username -> select(1L));
+
+        assertThat(loads).hasValue(1);
+        assertThat(shared.getRealname()).isEqualTo("Alice");
+        assertThat(loaded.getPassword()).isNull();
+        assertThat(shared.getPassword()).isNull();
+        assertThat(redisTemplate.<String, String>opsForHash().keys("cache:user:id:1"))
+                .contains("username", "realname", "status")
+                .doesNotContain("password", "salt", "idno");
+    }
+
+    @Test
+    void invalidationEvictsOtherNodes() {
+        EntityCache<User> nodeA = node(true);
+        EntityCache<User> nodeB = node(true);
+        nodeA.getById(1L, this::select);
+        nodeB.getById(1L, this::select);
+
+        table.put(1L, user(1L, "alice", "Alice Liddell"));
+        nodeA.invalidate(1L, "alice");
+
+        assertThat(redisTemplate.hasKey("cache:user:id:1")).isFalse();
+        await(() -> "Alice Liddell".equals(nodeB.getById(1L, this::select).getRealname()));
+        assertThat(nodeB.getByKey("alice", username -> select(1L)).getRealname()).isEqualTo("Alice Liddell");
+    }
+
+    @Test
+    void discardsRedisWriteOfLoadThatRacesWithOtherNode() {
+        // 收不到失效消息的节点：本地代次无法发现其他节点的失效，只能依靠 Redis 版本号
+        EntityCache<User> slowNode = node(false);
+        EntityCache<User> nodeB = node(true);
+
+        slowNode.getById(1L, id -> {
+            User stale = select(id);
+            // 查询返回后、写入缓存前，另一个节点修改了用户并完成失效
+            table.put(1L, user(1L, "alice", "Alice Liddell"));
+            nodeB.invalidate(1L, "alice");
+            return stale;
+        });
+
+        assertThat(redisTemplate.hasKey("cache:user:id:1")).isFalse();
+        assertThat(redisTemplate.hasKey("cache:user:key:alice")).isFalse();
+        assertThat(nodeB.getById(1L, this::select).getRealname()).isEqualTo("Alice Liddell");
+    }
+
+    /**
+     * 创建一个节点的用户缓存
+     *
+     * @param subscribe 是否订阅失效消息
+     */
+    private EntityCache<User> node(boolean subscribe) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CacheInvalidationBus bus = new CacheInvalidationBus(redisTemplate, new ObjectMapper(), meterRegistry);
+        if (subscribe) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            container.addMessageListener(bus, new ChannelTopic(CacheInvalidationBus.CHANNEL));
+            container.afterPropertiesSet();
+            container.start();
+            containers.add(container);
+            int expected = containers.size();
+            await(() -> subscribers() >= expected);
+        }
+        return new EntityCache<>("user", User.class, User::getId, User::getUsername,
+                new EntityCache.EntityCacheProperties(true, 100, 60, 300), redisTemplate,
+                EntityCacheConfig.entityMapper(), bus, meterRegistry);
+    }
+
+    private User select(Long id) {
+        loads.incrementAndGet();
+        User row = table.get(id);
+        return row == null ? null : user(row.getId(), row.getUsername(), row.getRealname());
+    }
+
+    private static long subscribers() {
+        Long count = redisTemplate.execute(new DefaultRedisScript<>(
+                "return redis.call('PUBSUB', 'NUMSUB', KEYS[1])[2]", Long.class), List.of(CacheInvalidationBus.CHANNEL));
+        return count == null ? 0 : count;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("等待超时").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static User user(Long id, String username, String realname) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setRealname(realname);
+        user.setPassword("$2a$10$hash");
+        user.setSalt("salt");
+        user.setIdno("110101199001011234");
+        user.setStatus(1);
+        return user;
+    }
+}
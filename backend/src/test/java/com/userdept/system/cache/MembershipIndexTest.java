@@ -0,0 +1,119 @@
+package com.userdept.system.cache;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.userdept.system.entity.UserDepartment;
+import com.userdept.system.mapper.UserDepartmentMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 成员关系索引：按用户重新加载不丢失并发的本节点写操作，删除的序号被回收
+ */
+class MembershipIndexTest {
+
+    private static final LocalDateTime ADDED = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private UserDepartmentMapper userDepartmentMapper;
+
+    private CacheInvalidationBus invalidationBus;
+
+    private MembershipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), UserDepartment.class);
+        userDepartmentMapper = mock(UserDepartmentMapper.class);
+        invalidationBus = mock(CacheInvalidationBus.class);
+        index = new MembershipIndex(userDepartmentMapper, invalidationBus);
+        index.init();
+    }
+
+    @Test
+    void reloadRequeriesWhenLocalWriteLandsDuringQuery() {
+        when(userDepartmentMapper.selectList(any())).thenReturn(List.of(relation("alice", "a")));
+        index.rebuild();
+
+        AtomicInteger queries = new AtomicInteger();
+        when(userDepartmentMapper.selectList(any())).thenAnswer(invocation -> {
+            if (queries.incrementAndGet() == 1) {
+                // 查询读到的是提交前的数据，返回前本节点提交了新关系并写入索引
+                index.add("alice", "b", ADDED);
+                return List.of(relation("alice", "a"));
+            }
+            return List.of(relation("alice", "a"), relation("alice", "b"));
+        });
+        userHandler().handle(null, List.of("alice"));
+
+        assertThat(queries).hasValue(2);
+        assertThat(index.getDepartmentCodes("alice")).containsExactly("a", "b");
+        assertThat(index.getUsernames("b")).containsExactly("alice");
+    }
+
+    @Test
+    void reloadReplacesRelationsOfOtherNodes() {
+        when(userDepartmentMapper.selectList(any())).thenReturn(List.of(relation("alice", "a"), relation("bob", "a")));
+        index.rebuild();
+
+        when(userDepartmentMapper.selectList(any())).thenReturn(List.of(relation("alice", "c")));
+        userHandler().handle(null, List.of("alice"));
+
+        assertThat(index.getDepartmentCodes("alice")).containsExactly("c");
+        assertThat(index.getUsernames("a")).containsExactly("bob");
+    }
+
+    @Test
+    void compactsOrdinalsOfRemovedUsers() {
+        when(userDepartmentMapper.selectList(any())).thenReturn(List.of());
+        index.rebuild();
+        int users = 3000;
+        for (int i = 0; i < users; i++) {
+            index.add("user" + i, "d" + i % 3, ADDED.plusSeconds(i));
+        }
+        index.add("user2999", "e", ADDED);
+
+        for (int i = 0; i < users - 10; i++) {
+            index.removeUser("user" + i);
+        }
+
+        int[] ordinals = index.ordinalCounts();
+        assertThat(ordinals[0]).isLessThan(users / 2);
+        assertThat(index.getDepartmentCodes("user2999")).containsExactlyInAnyOrder("d2", "e");
+        assertThat(index.getDepartmentCodes("user0")).isEmpty();
+        assertThat(index.getMembers("d0")).extracting(MembershipIndex.Member::username)
+                .containsExactly("user2991", "user2994", "user2997");
+        assertThat(index.getMembers("d0").get(0).addedTime()).isEqualTo(ADDED.plusSeconds(2991));
+        assertThat(index.getUsernames("e")).containsExactly("user2999");
+
+        // 重新编号后继续增量维护
+        index.add("user0", "e", ADDED);
+        assertThat(index.getUsernames("e")).containsExactlyInAnyOrder("user0", "user2999");
+    }
+
+    private CacheInvalidationBus.Handler userHandler() {
+        ArgumentCaptor<CacheInvalidationBus.Handler> handler = ArgumentCaptor.forClass(CacheInvalidationBus.Handler.class);
+        verify(invalidationBus).register(eq("membership.user"), handler.capture());
+        return handler.getValue();
+    }
+
+    private static UserDepartment relation(String username, String departmentCode) {
+        UserDepartment relation = new UserDepartment();
+        relation.setUsername(username);
+        relation.setDepartmentCode(departmentCode);
+        relation.setCreatedTime(ADDED);
+        return relation;
+    }
+}
@@ -0,0 +1,107 @@
+package com.userdept.system.cache;
+
+import com.userdept.system.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class UserPrincipalCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private CacheInvalidationBus bus;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserPrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        bus = mock(CacheInvalidationBus.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserPrincipalCache(100, 60, bus, meterRegistry);
+        cache.init();
+    }
+
+    @Test
+    void cachesPrincipalWithoutCredentials() {
+        UserDetails first = cache.get("alice", this::load);
+        UserDetails second = cache.get("alice", this::load);
+
+        assertThat(loads).hasValue(1);
+        assertThat(second).isSameAs(first);
+        User principal = (User) first;
+        assertThat(principal.getRealname()).isEqualTo("Alice");
+        assertThat(principal.getPassword()).isNull();
+        assertThat(principal.getSalt()).isNull();
+        assertThat(principal.getIdno()).isNull();
+        assertThat(principal.isEnabled()).isTrue();
+    }
+
+    @Test
+    void discardsLoadThatRacesWithInvalidation() {
+        cache.get("alice", username -> {
+            User stale = load(username);
+            // 查询返回后、写入缓存前，另一个请求修改了用户并完成失效
+            cache.invalidate(username);
+            return stale;
+        });
+        cache.get("alice", this::load);
+
+        assertThat(loads).hasValue(2);
+        assertThat(meterRegistry.get("auth.principal.cache.put.skipped").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidationIsCountedOnceAndPublished() {
+        cache.get("alice", this::load);
+
+        cache.invalidate("alice");
+        cache.get("alice", this::load);
+
+        assertThat(loads).hasValue(2);
+        assertThat(meterRegistry.get("auth.principal.cache.invalidations").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.principal.cache.evictions").functionCounter().count()).isZero();
+        verify(bus).publish(eq("auth.principal"), isNull(), eq(List.of("alice")));
+    }
+
+    @Test
+    void remoteInvalidationEvictsWithoutRepublishing() {
+        ArgumentCaptor<CacheInvalidationBus.Handler> handler = ArgumentCaptor.forClass(CacheInvalidationBus.Handler.class);
+        verify(bus).register(eq("auth.principal"), handler.capture());
+        cache.get("alice", this::load);
+
+        handler.getValue().handle(null, List.of("alice"));
+        cache.get("alice", this::load);
+
+        assertThat(loads).hasValue(2);
+        verify(bus).register(eq("auth.principal"), any());
+        verifyNoMoreInteractions(bus);
+    }
+
+    private User load(String username) {
+        loads.incrementAndGet();
+        User user = new User();
+        user.setId(1L);
+        user.setUsername(username);
+        user.setRealname("Alice");
+        user.setPassword("$2a$10$hash");
+        user.setSalt("salt");
+        user.setIdno("110101199001011234");
+        user.setStatus(1);
+        return user;
+    }
+}
@@ -0,0 +1,78 @@
+package com.userdept.system.config;
+
+import com.userdept.system.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 有界 BCrypt 编码器
+ */
+class BoundedPasswordEncoderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BoundedPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        encoder = new BoundedPasswordEncoder(4, 2, 2, 5000, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void encodeAllKeepsInputOrderWhenBatchExceedsQueue() {
+        List<String> passwords = IntStream.range(0, 20).mapToObj(i -> "password" + i).collect(Collectors.toList());
+
+        List<String> hashes = encoder.encodeAll(passwords);
+
+        assertThat(hashes).hasSize(passwords.size());
+        for (int i = 0; i < passwords.size(); i++) {
+            assertThat(encoder.matches(passwords.get(i), hashes.get(i))).isTrue();
+        }
+    }
+
+    @Test
+    void timedOutTasksAreSkippedAndSlowHashesAreRejectedAtSubmit() throws InterruptedException {
+        encoder.shutdown();
+        // 单线程、超时远小于 cost 12 的哈希耗时；指标需要绑定新的线程池
+        meterRegistry = new SimpleMeterRegistry();
+        encoder = new BoundedPasswordEncoder(12, 1, 10, 50, meterRegistry);
+
+        // 开始执行后无法中断，调用方超时返回；任务完成后记录耗时
+        assertThatThrownBy(() -> encoder.encode("password1")).isInstanceOf(ServiceBusyException.class);
+        awaitIdle();
+
+        assertThatThrownBy(() -> encoder.encode("password2")).isInstanceOf(ServiceBusyException.class);
+        // 排在 password2 之后，调用方超时后出队时跳过
+        assertThatThrownBy(() -> encoder.encode("password3")).isInstanceOf(ServiceBusyException.class);
+        // 队列中已有任务且近期耗时超过超时时间，提交时直接拒绝，不再排队
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> encoder.encode("password4")).isInstanceOf(ServiceBusyException.class);
+        assertThat(System.nanoTime() - start).isLessThan(50_000_000L);
+
+        awaitIdle();
+        assertThat(meterRegistry.get("password.hash.duration").tag("operation", "encode").timer().count())
+                .isEqualTo(2);
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        while (meterRegistry.get("password.hash.active").gauge().value() > 0
+                || meterRegistry.get("password.hash.queue.depth").gauge().value() > 0) {
+            Thread.sleep(10);
+        }
+    }
+}
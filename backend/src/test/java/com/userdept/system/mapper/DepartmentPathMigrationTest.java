@@ -0,0 +1,131 @@
+package com.userdept.system.mapper;
+
+import com.userdept.system.support.MySqlTestSupport;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * V3 迁移：为已有的部门数据计算祖先路径，修复父部门缺失与环
+ */
+class DepartmentPathMigrationTest extends MySqlTestSupport {
+
+    @Test
+    void rerootsOrphansAndBreaksCyclesAtOneNode() throws Exception {
+        String database = "migrate_department_path";
+        createDatabase(database, "2");
+        insert(database,
+                "root", "",
+                "a", "root",
+                "a1", "a",
+                // 父部门不存在
+                "o", "missing",
+                "o1", "o",
+                // 环 x -> y -> z -> x，以及挂在环上的子树
+                "y", "x",
+                "z", "y",
+                "x", "z",
+                "t", "y",
+                "t1", "t",
+                // 自环
+                "s", "s",
+                "s1", "s");
+
+        migrate(database, null);
+
+        Map<String, String[]> departments = departments(database);
+        assertThat(departments.get("a1")).containsExactly("a", "/root/a/a1/");
+        assertThat(departments.get("o")).containsExactly("", "/o/");
+        assertThat(departments.get("o1")).containsExactly("o", "/o/o1/");
+        assertThat(departments.get("x")).containsExactly("", "/x/");
+        assertThat(departments.get("y")).containsExactly("x", "/x/y/");
+        assertThat(departments.get("z")).containsExactly("y", "/x/y/z/");
+        assertThat(departments.get("t")).containsExactly("y", "/x/y/t/");
+        assertThat(departments.get("t1")).containsExactly("t", "/x/y/t/t1/");
+        assertThat(departments.get("s")).containsExactly("", "/s/");
+        assertThat(departments.get("s1")).containsExactly("s", "/s/s1/");
+    }
+
+    @Test
+    void migratesDeepHierarchyAndLongCycle() throws Exception {
+        String database = "migrate_department_deep";
+        createDatabase(database, "2");
+        // 240 层的链与 240 个部门组成的环，路径接近 1000 个字符的上限
+        int depth = 240;
+        String[] chain = new String[depth * 2];
+        String[] cycle = new String[depth * 2];
+        for (int i = 0; i < depth; i++) {
+            chain[i * 2] = "a" + Integer.toString(i, 36);
+            chain[i * 2 + 1] = i == 0 ? "" : "a" + Integer.toString(i - 1, 36);
+            cycle[i * 2] = "c" + Integer.toString(i, 36);
+            cycle[i * 2 + 1] = "c" + Integer.toString((i + depth - 1) % depth, 36);
+        }
+        insert(database, chain);
+        insert(database, cycle);
+
+        migrate(database, null);
+
+        Map<String, String[]> departments = departments(database);
+        String deepest = "a" + Integer.toString(depth - 1, 36);
+        assertThat(departments.get(deepest)[1]).startsWith("/a0/a1/").endsWith("/" + deepest + "/");
+        assertThat(departments.get(deepest)[1].split("/")).hasSize(depth + 1);
+        // 环在编号最小的 c0 处断开，c0 的原父部门成为最深的部门
+        assertThat(departments.get("c0")).containsExactly("", "/c0/");
+        String last = "c" + Integer.toString(depth - 1, 36);
+        assertThat(departments.get(last)[1].split("/")).hasSize(depth + 1);
+        assertThat(departments.values()).noneMatch(department -> department[1].isEmpty());
+    }
+
+    @Test
+    void rejectsCodesContainingSlash() throws Exception {
+        String database = "migrate_department_slash";
+        createDatabase(database, "2");
+        insert(database, "a/b", "");
+
+        assertThatThrownBy(() -> migrate(database, null))
+                .isInstanceOf(FlywayException.class)
+                .hasMessageContaining("chk_department_code_no_slash");
+    }
+
+    /**
+     * 插入部门，参数依次为部门编号与父部门编号
+     */
+    private static void insert(String database, String... codes) throws Exception {
+        try (Connection connection = connection(database);
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO department (code, parent_code, name) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < codes.length; i += 2) {
+                insert.setString(1, codes[i]);
+                insert.setString(2, codes[i + 1]);
+                insert.setString(3, codes[i]);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    /**
+     * 部门编号 -> [父部门编号, 路径]
+     */
+    private static Map<String, String[]> departments(String database) throws Exception {
+        Map<String, String[]> departments = new HashMap<>();
+        try (Connection connection = connection(database);
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT code, parent_code, path FROM department")) {
+            while (rows.next()) {
+                departments.put(rows.getString("code"),
+                        new String[]{rows.getString("parent_code"), rows.getString("path")});
+            }
+        }
+        return departments;
+    }
+}
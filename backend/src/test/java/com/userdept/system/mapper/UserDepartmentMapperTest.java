@@ -0,0 +1,102 @@
+package com.userdept.system.mapper;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.userdept.system.entity.UserDepartment;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 用户部门关联 Mapper 在内存数据库（H2 MySQL 兼容模式）上的测试，不依赖 Docker
+ */
+class UserDepartmentMapperTest {
+
+    private UserDepartmentMapper mapper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        PooledDataSource dataSource = new PooledDataSource("org.h2.Driver", url, "sa", "");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE user_department ("
+                    + "id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "username VARCHAR(32) NOT NULL, "
+                    + "department_code VARCHAR(32) NOT NULL, "
+                    + "creator VARCHAR(32) NOT NULL DEFAULT '', "
+                    + "created_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                    + "CONSTRAINT uk_username_department_code UNIQUE (username, department_code))");
+        }
+        MybatisConfiguration configuration = new MybatisConfiguration(
+                new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(UserDepartmentMapper.class);
+        mapper = SqlSessionManager.newInstance(new MybatisSqlSessionFactoryBuilder().build(configuration))
+                .getMapper(UserDepartmentMapper.class);
+    }
+
+    @Test
+    void insertIfAbsentFillsIdOnInsert() {
+        UserDepartment inserted = userDepartment("alice", "class1", LocalDateTime.of(2024, 1, 1, 8, 0));
+
+        mapper.insertIfAbsent(inserted);
+
+        assertThat(inserted.getId()).isNotNull();
+        assertThat(rows("alice")).singleElement()
+                .satisfies(row -> assertThat(row.getId()).isEqualTo(inserted.getId()));
+    }
+
+    @Test
+    void insertIfAbsentLeavesExistingRowUntouched() {
+        mapper.insertIfAbsent(userDepartment("alice", "class1", LocalDateTime.of(2024, 1, 1, 8, 0)));
+
+        UserDepartment duplicate = userDepartment("alice", "class1", LocalDateTime.of(2024, 6, 1, 8, 0));
+        duplicate.setCreator("bob");
+        mapper.insertIfAbsent(duplicate);
+
+        assertThat(duplicate.getId()).isNull();
+        assertThat(rows("alice")).singleElement().satisfies(row -> {
+            assertThat(row.getCreator()).isEqualTo("admin");
+            assertThat(row.getCreatedTime()).isEqualTo(LocalDateTime.of(2024, 1, 1, 8, 0));
+        });
+    }
+
+    @Test
+    void insertIfAbsentInsertsOtherDepartmentsOfSameUser() {
+        mapper.insertIfAbsent(userDepartment("alice", "class1", LocalDateTime.of(2024, 1, 1, 8, 0)));
+
+        UserDepartment other = userDepartment("alice", "class2", LocalDateTime.of(2024, 1, 1, 8, 0));
+        mapper.insertIfAbsent(other);
+
+        assertThat(other.getId()).isNotNull();
+        assertThat(rows("alice")).extracting(UserDepartment::getDepartmentCode)
+                .containsExactlyInAnyOrder("class1", "class2");
+    }
+
+    private List<UserDepartment> rows(String username) {
+        return mapper.selectList(Wrappers.<UserDepartment>lambdaQuery()
+                .eq(UserDepartment::getUsername, username));
+    }
+
+    private static UserDepartment userDepartment(String username, String departmentCode, LocalDateTime createdTime) {
+        UserDepartment userDepartment = new UserDepartment();
+        userDepartment.setUsername(username);
+        userDepartment.setDepartmentCode(departmentCode);
+        userDepartment.setCreator("admin");
+        userDepartment.setCreatedTime(createdTime);
+        return userDepartment;
+    }
+}
@@ -0,0 +1,72 @@
+package com.userdept.system.mapper;
+
+import com.userdept.system.support.MySqlTestSupport;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * user_department 热点查询的执行计划（V2 迁移的索引）：不允许全表扫描
+ */
+class UserDepartmentQueryPlanTest extends MySqlTestSupport {
+
+    private static final String DATABASE = "plan_user_department";
+
+    private static final int USERS = 2000;
+
+    private static final int DEPARTMENTS = 50;
+
+    @BeforeAll
+    static void seed() throws Exception {
+        createDatabase(DATABASE, null);
+        try (Connection connection = connection(DATABASE);
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT IGNORE INTO user_department (username, department_code, creator) VALUES (?, ?, 'test')")) {
+            for (int i = 0; i < USERS; i++) {
+                for (int j = 0; j < 2; j++) {
+                    insert.setString(1, "user" + i);
+                    insert.setString(2, "D" + ((i + j * 7) % DEPARTMENTS));
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE TABLE user_department");
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', value = {
+            // getUserDepartmentCodes、convertToResponse、更新/删除用户
+            "by username          | SELECT department_code FROM user_department WHERE username = 'user1'",
+            // convertToResponseList、成员关系索引增量加载
+            "by usernames         | SELECT username, department_code FROM user_department WHERE username IN ('user1', 'user2', 'user3') ORDER BY id",
+            // getUsersInDepartment、getUserDepartmentVOs
+            "by department        | SELECT username FROM user_department WHERE department_code = 'D1'",
+            // 递归成员查询的数据库回退
+            "by departments       | SELECT username, department_code FROM user_department WHERE department_code IN ('D1', 'D2') ORDER BY id",
+            // assignUserToDepartment / removeUserFromDepartment
+            "by user & department | SELECT id FROM user_department WHERE username = 'user1' AND department_code = 'D1'",
+            // deleteDepartment
+            "delete by department | DELETE FROM user_department WHERE department_code = 'D1'",
+            // deleteUser
+            "delete by username   | DELETE FROM user_department WHERE username = 'user1'",
+    })
+    void hotQueryUsesIndex(String name, String sql) throws Exception {
+        try (Connection connection = connection(DATABASE);
+             Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("EXPLAIN " + sql)) {
+            assertThat(plan.next()).isTrue();
+            assertThat(plan.getString("type")).as("%s: access type", name).isNotEqualTo("ALL");
+            assertThat(plan.getString("key")).as("%s: index", name).isNotNull();
+        }
+    }
+}
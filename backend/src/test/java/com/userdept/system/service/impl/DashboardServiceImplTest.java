@@ -0,0 +1,121 @@
+package com.userdept.system.service.impl;
+
+import com.userdept.system.cache.CacheInvalidationBus;
+import com.userdept.system.mapper.DashboardMapper;
+import com.userdept.system.vo.DashboardStatsVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 仪表盘计数：对账不丢失并发的增量，调整量同步到其他节点
+ */
+class DashboardServiceImplTest {
+
+    private DashboardMapper dashboardMapper;
+
+    private CacheInvalidationBus invalidationBus;
+
+    private DashboardServiceImpl dashboardService;
+
+    @BeforeEach
+    void setUp() {
+        dashboardMapper = mock(DashboardMapper.class);
+        invalidationBus = mock(CacheInvalidationBus.class);
+        dashboardService = new DashboardServiceImpl(dashboardMapper, invalidationBus);
+        dashboardService.init();
+    }
+
+    @Test
+    void reconcileReplacesCountsWhenNothingChanged() {
+        when(dashboardMapper.selectStats()).thenReturn(new DashboardStatsVO(10L, 3L, 8L));
+
+        dashboardService.reconcile();
+
+        assertThat(dashboardService.getStats()).isEqualTo(new DashboardStatsVO(10L, 3L, 8L));
+    }
+
+    @Test
+    void reconcileKeepsIncrementsMadeDuringTheQuery() {
+        when(dashboardMapper.selectStats()).thenReturn(new DashboardStatsVO(10L, 3L, 8L));
+        dashboardService.reconcile();
+
+        // 查询返回之后、计数替换之前有用户创建，查询结果中不含该用户
+        when(dashboardMapper.selectStats()).thenAnswer(invocation -> {
+            dashboardService.onUserCreated(true);
+            return new DashboardStatsVO(10L, 3L, 8L);
+        });
+        dashboardService.reconcile();
+
+        assertThat(dashboardService.getStats()).isEqualTo(new DashboardStatsVO(11L, 3L, 9L));
+    }
+
+    @Test
+    void reconcileDoesNotCountCommittedWriteTwice() {
+        when(dashboardMapper.selectStats()).thenReturn(new DashboardStatsVO(10L, 3L, 8L));
+        dashboardService.reconcile();
+
+        // 用户创建已提交、提交后回调尚未执行时对账，查询结果中已含该用户
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dashboardService.onUserCreated(true);
+            when(dashboardMapper.selectStats()).thenReturn(new DashboardStatsVO(11L, 3L, 9L));
+            dashboardService.reconcile();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(dashboardService.getStats()).isEqualTo(new DashboardStatsVO(11L, 3L, 9L));
+
+        dashboardService.reconcile();
+        assertThat(dashboardService.getStats()).isEqualTo(new DashboardStatsVO(11L, 3L, 9L));
+    }
+
+    @Test
+    void rolledBackWriteIsNotCounted() {
+        when(dashboardMapper.selectStats()).thenReturn(new DashboardStatsVO(10L, 3L, 8L));
+        dashboardService.reconcile();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dashboardService.onDepartmentCreated();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(dashboardService.getStats()).isEqualTo(new DashboardStatsVO(10L, 3L, 8L));
+
+        // 回滚后不再阻止对账
+        when(dashboardMapper.selectStats()).thenReturn(new DashboardStatsVO(12L, 3L, 8L));
+        dashboardService.reconcile();
+        assertThat(dashboardService.getStats()).isEqualTo(new DashboardStatsVO(12L, 3L, 8L));
+    }
+
+    @Test
+    void adjustmentsArePublishedAndAppliedByOtherNodes() {
+        when(dashboardMapper.selectStats()).thenReturn(new DashboardStatsVO(10L, 3L, 8L));
+        dashboardService.reconcile();
+
+        dashboardService.onDepartmentsDeleted(2);
+        verify(invalidationBus).publish(eq("dashboard.stats"), isNull(), eq(List.of("0", "0", "-2")));
+
+        ArgumentCaptor<CacheInvalidationBus.Handler> handler = ArgumentCaptor.forClass(CacheInvalidationBus.Handler.class);
+        verify(invalidationBus).register(eq("dashboard.stats"), handler.capture());
+        handler.getValue().handle(null, List.of("1", "-1", "0"));
+
+        assertThat(dashboardService.getStats()).isEqualTo(new DashboardStatsVO(11L, 1L, 7L));
+    }
+}
@@ -0,0 +1,160 @@
+package com.userdept.system.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.userdept.system.mapper.UserMapper;
+import com.userdept.system.support.MySqlTestSupport;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 用户导出：同一用户的部门跨行合并，100 万用户在固定堆大小内完成
+ * <p>
+ * 固定堆测试在子进程（-Xmx64m）中导出，结果集若整体驻留内存会 OutOfMemoryError。
+ * 用户数可用 -Dtest.export.users 调整，默认 1000000。
+ */
+class UserExportServiceImplTest extends MySqlTestSupport {
+
+    private static final int USERS = Integer.getInteger("test.export.users", 1_000_000);
+
+    private static final String HEAP = "-Xmx64m";
+
+    @Test
+    void mergesDepartmentRowsAcrossBatches() throws SQLException, IOException {
+        String database = "export_users";
+        createDatabase(database, null);
+        try (Connection connection = connection(database);
+             Statement statement = connection.createStatement()) {
+            for (int i = 1; i <= 5; i++) {
+                statement.execute("INSERT INTO user (username, realname) VALUES ('user" + i + "', '用户" + i + "')");
+            }
+            // user2 没有部门，部门编码可以包含逗号
+            statement.execute("INSERT INTO user_department (username, department_code) VALUES "
+                    + "('user1', 'A'), ('user3', 'B,1'), ('user3', 'C'), ('user4', 'A'), ('user5', 'A'), ('user5', 'B,1')");
+        }
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        UserExportServiceImpl exportService = exportService(userMapper(jdbcUrl(database), username(), password()),
+                objectMapper, 2);
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        assertThat(exportService.exportUsers("ndjson", ndjson)).isEqualTo(5);
+        List<String> codes = new ArrayList<>();
+        for (String line : ndjson.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode user = objectMapper.readTree(line);
+            codes.add(user.get("username").asText() + "=" + user.get("departmentCodes"));
+        }
+        assertThat(codes).containsExactly("user1=[\"A\"]", "user2=[]", "user3=[\"B,1\",\"C\"]",
+                "user4=[\"A\"]", "user5=[\"A\",\"B,1\"]");
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.exportUsers("csv", csv);
+        assertThat(csv.toString(StandardCharsets.UTF_8)).contains("\"[\"\"B,1\"\",\"\"C\"\"]\"");
+    }
+
+    @Test
+    void exportsOneMillionUsersWithinFixedHeap() throws Exception {
+        String database = "export_users_heap";
+        createDatabase(database, null);
+        seed(database, USERS);
+
+        Path output = Files.createTempFile("export", ".out");
+        try {
+            Process process = new ProcessBuilder(
+                    Path.of(System.getProperty("java.home"), "bin", "java").toString(), HEAP,
+                    "-cp", System.getProperty("java.class.path"),
+                    ExportMain.class.getName(), jdbcUrl(database), username(), password())
+                    .redirectErrorStream(true)
+                    .redirectOutput(output.toFile())
+                    .start();
+            assertThat(process.waitFor(10, TimeUnit.MINUTES)).isTrue();
+            String out = Files.readString(output);
+            assertThat(process.exitValue()).as(out).isZero();
+            assertThat(out).contains("exported=" + USERS);
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    /**
+     * 生成 count 个用户，每个用户两个部门
+     */
+    private static void seed(String database, int count) throws SQLException {
+        try (Connection connection = connection(database);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE seq_digit (d INT NOT NULL)");
+            statement.execute("INSERT INTO seq_digit VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9)");
+            StringBuilder number = new StringBuilder("0");
+            StringBuilder from = new StringBuilder();
+            for (int i = 0, scale = 1; scale < count; i++, scale *= 10) {
+                number.append(" + d").append(i).append(".d * ").append(scale);
+                from.append(i == 0 ? "" : ", ").append("seq_digit d").append(i);
+            }
+            statement.execute("INSERT INTO user (username, realname, mobile, email, created_time, updated_time) "
+                    + "SELECT CONCAT('export', n), CONCAT('用户', n), LPAD(n, 11, '0'), CONCAT('export', n, '@example.com'), "
+                    + "NOW(), NOW() FROM (SELECT " + number + " AS n FROM " + from + ") seq WHERE n < " + count);
+            statement.execute("INSERT INTO user_department (username, department_code) "
+                    + "SELECT username, CONCAT('D', id % 100) FROM user");
+            statement.execute("INSERT INTO user_department (username, department_code) "
+                    + "SELECT username, CONCAT('E,', id % 7) FROM user");
+            statement.execute("DROP TABLE seq_digit");
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM user")) {
+                rs.next();
+                assertThat(rs.getInt(1)).isEqualTo(count);
+            }
+        }
+    }
+
+    private static UserExportServiceImpl exportService(UserMapper userMapper, ObjectMapper objectMapper, int batchSize) {
+        UserExportServiceImpl exportService = new UserExportServiceImpl(userMapper, objectMapper);
+        ReflectionTestUtils.setField(exportService, "batchSize", batchSize);
+        return exportService;
+    }
+
+    /**
+     * 不依赖 Spring 的 UserMapper，每次调用单独打开并关闭会话
+     */
+    private static UserMapper userMapper(String url, String username, String password) {
+        PooledDataSource dataSource = new PooledDataSource("com.mysql.cj.jdbc.Driver", url, username, password);
+        MybatisConfiguration configuration = new MybatisConfiguration(
+                new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(UserMapper.class);
+        return SqlSessionManager.newInstance(new MybatisSqlSessionFactoryBuilder().build(configuration))
+                .getMapper(UserMapper.class);
+    }
+
+    /**
+     * 固定堆子进程入口：导出到丢弃输出的流
+     */
+    public static final class ExportMain {
+
+        public static void main(String[] args) {
+            UserMapper userMapper = userMapper(args[0], args[1], args[2]);
+            ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+            long count = exportService(userMapper, objectMapper, 1000).exportUsers("ndjson", OutputStream.nullOutputStream());
+            System.out.println("exported=" + count + ", maxMemory=" + Runtime.getRuntime().maxMemory() / 1024 / 1024 + "MB");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.userdept.system.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.userdept.system.cache.MembershipIndex;
+import com.userdept.system.config.BoundedPasswordEncoder;
+import com.userdept.system.entity.User;
+import com.userdept.system.mapper.UserMapper;
+import com.userdept.system.search.UserSearchBackend;
+import com.userdept.system.service.DashboardService;
+import com.userdept.system.vo.UserImportResultVO;
+import jakarta.validation.Validation;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户批量导入：失败明细的行号为物理行号
+ */
+class UserImportServiceImplTest {
+
+    @BeforeAll
+    static void initTableInfo() {
+        // Lambda 条件构造器需要实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), User.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void csvErrorsReportPhysicalLineNumbers() {
+        UserMapper userMapper = mock(UserMapper.class);
+        // 所有用户名都已存在，不会进入哈希与写入阶段
+        when(userMapper.selectList(any())).thenReturn(List.of(user("alice1"), user("carol1")));
+        UserImportServiceImpl importService = new UserImportServiceImpl(userMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(),
+                mock(TransactionTemplate.class), mock(ObjectProvider.class), mock(DashboardService.class),
+                mock(BoundedPasswordEncoder.class), mock(MembershipIndex.class));
+        ReflectionTestUtils.setField(importService, "batchSize", 500);
+        ReflectionTestUtils.setField(importService, "maxErrors", 1000);
+
+        String csv = "username,password,realname\n"
+                + "alice1,secret1,\"跨行\n的姓名\"\n"
+                + "\n"
+                + "bob,secret1,张三\n"
+                + "carol1,secret1,李四\n";
+        UserImportResultVO result = importService.importUsers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "csv");
+
+        Map<String, Long> lines = result.getErrors().stream()
+                .collect(Collectors.toMap(UserImportResultVO.RowError::getUsername, UserImportResultVO.RowError::getLine));
+        assertThat(lines).containsExactlyInAnyOrderEntriesOf(Map.of("alice1", 2L, "bob", 5L, "carol1", 6L));
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        return user;
+    }
+}
@@ -0,0 +1,130 @@
+package com.userdept.system.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.userdept.system.cache.EntityCache;
+import com.userdept.system.cache.MembershipIndex;
+import com.userdept.system.cache.UserPrincipalCache;
+import com.userdept.system.dto.UserResponse;
+import com.userdept.system.entity.User;
+import com.userdept.system.entity.UserDepartment;
+import com.userdept.system.mapper.UserDepartmentMapper;
+import com.userdept.system.mapper.UserMapper;
+import com.userdept.system.search.UserSearchBackend;
+import com.userdept.system.service.DashboardService;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户分页转换：整页用户的部门关联只查询一次
+ */
+class UserServiceImplTest {
+
+    private static final int PAGE_SIZE = 50;
+
+    private UserMapper userMapper;
+
+    private UserDepartmentMapper userDepartmentMapper;
+
+    private MembershipIndex membershipIndex;
+
+    private UserServiceImpl userService;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // Lambda 条件构造器需要实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), UserDepartment.class);
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        userMapper = mock(UserMapper.class);
+        userDepartmentMapper = mock(UserDepartmentMapper.class);
+        membershipIndex = mock(MembershipIndex.class);
+        userService = new UserServiceImpl(userMapper, userDepartmentMapper, mock(UserPrincipalCache.class),
+                mock(EntityCache.class), membershipIndex, mock(ObjectProvider.class),
+                mock(DashboardService.class), mock(PasswordEncoder.class));
+    }
+
+    @Test
+    void convertsPageWithSingleMembershipQuery() {
+        List<User> users = users(PAGE_SIZE);
+        List<UserDepartment> relations = new ArrayList<>();
+        for (User user : users) {
+            relations.add(relation(user.getUsername(), "D1"));
+            relations.add(relation(user.getUsername(), "D2"));
+        }
+        when(membershipIndex.isReady()).thenReturn(false);
+        when(userDepartmentMapper.selectList(any())).thenReturn(relations);
+
+        List<UserResponse> responses = userService.convertToResponseList(users);
+
+        assertThat(responses).hasSize(PAGE_SIZE);
+        assertThat(responses).allSatisfy(r -> assertThat(r.getDepartmentCodes()).containsExactly("D1", "D2"));
+        verify(userDepartmentMapper, times(1)).selectList(any());
+        verifyNoInteractions(userMapper);
+    }
+
+    @Test
+    void convertsPageFromMembershipIndexWithoutQueries() {
+        List<User> users = users(PAGE_SIZE);
+        when(membershipIndex.isReady()).thenReturn(true);
+        when(membershipIndex.getDepartmentCodes(anyCollection())).thenReturn(Map.of("user0", List.of("D1")));
+
+        List<UserResponse> responses = userService.convertToResponseList(users);
+
+        assertThat(responses).hasSize(PAGE_SIZE);
+        assertThat(responses.get(0).getDepartmentCodes()).containsExactly("D1");
+        assertThat(responses.get(1).getDepartmentCodes()).isEmpty();
+        verifyNoInteractions(userDepartmentMapper, userMapper);
+    }
+
+    @Test
+    void singleConversionMatchesBatchConversion() {
+        User user = users(1).get(0);
+        when(membershipIndex.isReady()).thenReturn(true);
+        when(membershipIndex.getDepartmentCodes("user0")).thenReturn(List.of("D1"));
+        when(membershipIndex.getDepartmentCodes(anyCollection())).thenReturn(Map.of("user0", List.of("D1")));
+
+        assertThat(userService.convertToResponse(user))
+                .isEqualTo(userService.convertToResponseList(List.of(user)).get(0));
+    }
+
+    private static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setId((long) i);
+            user.setUsername("user" + i);
+            user.setRealname("用户" + i);
+            user.setStatus(i % 2);
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static UserDepartment relation(String username, String departmentCode) {
+        UserDepartment relation = new UserDepartment();
+        relation.setUsername(username);
+        relation.setDepartmentCode(departmentCode);
+        return relation;
+    }
+}
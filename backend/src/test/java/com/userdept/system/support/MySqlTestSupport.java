@@ -0,0 +1,90 @@
+package com.userdept.system.support;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.Assumptions;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * MySQL 集成测试支持
+ * <p>
+ * 默认使用与 docker-compose 相同版本的 MySQL 容器（所有测试类共享一个容器）；
+ * 指定 -Dtest.mysql.url=jdbc:mysql://host:3306（及 test.mysql.username、test.mysql.password）时改用已有的数据库服务。
+ * 两者都不可用时跳过测试。每个测试类使用独立的库，开始时重建。
+ */
+public abstract class MySqlTestSupport {
+
+    private static final String URL = System.getProperty("test.mysql.url");
+
+    private static final String USERNAME = System.getProperty("test.mysql.username", "root");
+
+    private static final String PASSWORD = System.getProperty("test.mysql.password", "");
+
+    private static MySQLContainer<?> container;
+
+    /**
+     * 重建测试库并执行 Flyway 迁移
+     *
+     * @param database 库名
+     * @param target 迁移到的版本，null 表示最新版本
+     */
+    protected static synchronized void createDatabase(String database, String target) throws SQLException {
+        Assumptions.assumeTrue(URL != null || DockerClientFactory.instance().isDockerAvailable(),
+                "需要 Docker 或 -Dtest.mysql.url");
+        if (URL == null && container == null) {
+            container = new MySQLContainer<>("mysql:8.0")
+                    .withUsername("root")
+                    .withPassword("test")
+                    .withCommand("--character-set-server=utf8mb4", "--collation-server=utf8mb4_unicode_ci");
+            container.start();
+        }
+        try (Connection connection = DriverManager.getConnection(serverUrl(), username(), password());
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS `" + database + "`");
+            statement.execute("CREATE DATABASE `" + database + "`");
+        }
+        migrate(database, target);
+    }
+
+    /**
+     * 将测试库迁移到指定版本
+     *
+     * @param target 目标版本，null 表示最新版本
+     */
+    protected static void migrate(String database, String target) {
+        Flyway.configure()
+                .dataSource(jdbcUrl(database), username(), password())
+                .target(target == null ? MigrationVersion.LATEST : MigrationVersion.fromVersion(target))
+                .load()
+                .migrate();
+    }
+
+    protected static Connection connection(String database) throws SQLException {
+        return DriverManager.getConnection(jdbcUrl(database), username(), password());
+    }
+
+    protected static String jdbcUrl(String database) {
+        return serverUrl() + "/" + database + "?useUnicode=true&characterEncoding=utf8&serverTimezone=Asia/Shanghai";
+    }
+
+    protected static String username() {
+        return URL != null ? USERNAME : container.getUsername();
+    }
+
+    protected static String password() {
+        return URL != null ? PASSWORD : container.getPassword();
+    }
+
+    private static String serverUrl() {
+        if (URL != null) {
+            return URL.endsWith("/") ? URL.substring(0, URL.length() - 1) : URL;
+        }
+        return "jdbc:mysql://" + container.getHost() + ":" + container.getMappedPort(MySQLContainer.MYSQL_PORT);
+    }
+}